@@ -0,0 +1,52 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html;
+
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.io.IOException;
+import javax.servlet.ServletException;
+import javax.servlet.jsp.SkipPageException;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Benchmarks {@link ElementFilterTree#writeElementFilterTreeImpl(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.aoapps.html.any.AnyPalpableContent, com.semanticcms.core.renderer.html.ElementFilterTree.ElementFilter, com.semanticcms.core.model.Node, boolean)}
+ * over a synthetic book, selecting about one in ten elements.
+ */
+public class ElementFilterTreeBenchmark extends SyntheticBookBenchmark {
+
+  @Benchmark
+  public long writeElementFilterTree() throws ServletException, IOException, SkipPageException {
+    CountingWriter out = new CountingWriter();
+    ElementFilterTree.writeElementFilterTreeImpl(
+        servletContext,
+        request,
+        response,
+        newContent(out),
+        SyntheticBook.FILTER,
+        book.getRoot(),
+        includeElements
+    );
+    return out.getCount();
+  }
+}
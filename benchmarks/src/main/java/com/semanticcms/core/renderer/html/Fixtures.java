@@ -0,0 +1,93 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html;
+
+import com.aoapps.lang.validation.ValidationException;
+import com.aoapps.net.DomainName;
+import com.aoapps.net.Path;
+import com.semanticcms.core.model.BookRef;
+import com.semanticcms.core.model.PageRef;
+
+/**
+ * Realistic page references and ids shared by the benchmarks.  Includes books at the root and nested, short and
+ * deep paths, and characters requiring encoding.
+ */
+final class Fixtures {
+
+  /** Make no instances. */
+  private Fixtures() {
+    throw new AssertionError();
+  }
+
+  /**
+   * The number of fixtures, a power of two so benchmarks may cycle through them with a mask.
+   */
+  static final int SIZE = 8;
+
+  static final int MASK = SIZE - 1;
+
+  private static final String[][] PAGE_REFS = {
+      {"semanticcms.com", "/core/renderer/html", "/index.jspx"},
+      {"semanticcms.com", "/core/renderer/html", "/changelog.jspx"},
+      {"aoindustries.com", "/docs/ao-apps/ao-lang", "/apidocs/com/aoapps/lang/Strings.jspx"},
+      {"aoindustries.com", "/", "/about/index.jspx"},
+      {"docs.example.org", "/handbook", "/chapter-3/section-2/installation-on-linux.jspx"},
+      {"docs.example.org", "/handbook", "/appendix/q&a <faq>.jspx"},
+      {"example.com", "/wiki/fr", "/général/présentation.jspx"},
+      {"example.com", "/", "/a.jspx"}
+  };
+
+  /**
+   * Element ids and anchors, including {@code null} for links to the page itself.
+   */
+  static final String[] IDS = {
+      "installation",
+      null,
+      "getRefId-java.lang.Integer-java.lang.String-",
+      "section-1",
+      "q&a",
+      null,
+      "élément",
+      "x"
+  };
+
+  static PageRef[] getPageRefs() {
+    try {
+      PageRef[] pageRefs = new PageRef[SIZE];
+      for (int i = 0; i < SIZE; i++) {
+        String[] pageRef = PAGE_REFS[i];
+        pageRefs[i] = new PageRef(
+            new BookRef(
+                DomainName.valueOf(pageRef[0]),
+                Path.valueOf(pageRef[1])
+            ),
+            Path.valueOf(pageRef[2])
+        );
+      }
+      return pageRefs;
+    } catch (ValidationException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
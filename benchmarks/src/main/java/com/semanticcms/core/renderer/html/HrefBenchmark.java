@@ -0,0 +1,101 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html;
+
+import com.semanticcms.core.model.Link;
+import com.semanticcms.core.model.PageRef;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the href building of every link written by {@link LinkRenderer},
+ * across the default and non-default view, links to pages, elements, and anchors, and pages in and out of a
+ * {@link PageIndex}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class HrefBenchmark {
+
+  @Param({"true", "false"})
+  public boolean defaultView;
+
+  @Param({"page", "element", "anchor"})
+  public String target;
+
+  @Param({"false", "true"})
+  public boolean indexed;
+
+  private static final String NON_DEFAULT_VIEW_NAME = "what-links-here";
+
+  private PageRef[] pageRefs;
+
+  private final int[] indexes = new int[Fixtures.SIZE];
+
+  private final StringBuilder href = new StringBuilder();
+
+  private int next;
+
+  @Setup
+  public void setup() {
+    pageRefs = Fixtures.getPageRefs();
+    for (int i = 0; i < Fixtures.SIZE; i++) {
+      indexes[i] = indexed ? ((i * 1237) % 2000) : PageIndex.NO_INDEX;
+    }
+  }
+
+  @Benchmark
+  public StringBuilder appendHref() throws IOException {
+    int n = next;
+    next = (n + 1) & Fixtures.MASK;
+    String id = Fixtures.IDS[n];
+    href.setLength(0);
+    LinkRenderer.appendHref(
+        href,
+        pageRefs[n],
+        "element".equals(target) ? id : null,
+        "anchor".equals(target) ? id : null,
+        defaultView ? Link.DEFAULT_VIEW_NAME : NON_DEFAULT_VIEW_NAME,
+        defaultView,
+        indexes[n],
+        // Every other link is to the current page
+        (n & 1) == 0
+    );
+    return href;
+  }
+}
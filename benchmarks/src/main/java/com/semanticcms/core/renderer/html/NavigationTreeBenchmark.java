@@ -0,0 +1,75 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html;
+
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.io.IOException;
+import javax.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Benchmarks {@link NavigationTreeRenderer#writeNavigationTree(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.aoapps.html.any.AnyPalpableContent, com.semanticcms.core.model.Page, boolean, boolean, boolean, java.lang.String, com.aoapps.net.DomainName, com.aoapps.net.Path, java.lang.String, com.aoapps.net.DomainName, com.aoapps.net.Path, java.lang.String, int)}
+ * over a synthetic book.
+ */
+public class NavigationTreeBenchmark extends SyntheticBookBenchmark {
+
+  /**
+   * When {@code true}, only shows nodes that link to {@link SyntheticBook#getLinksTo()}.
+   */
+  @Param({"false", "true"})
+  public boolean linksToPage;
+
+  /**
+   * The maximum depth of the tree, {@code 0} for unlimited.
+   */
+  @Param({"0", "3"})
+  public int maxDepth;
+
+  @Benchmark
+  public long writeNavigationTree() throws ServletException, IOException {
+    PageRef linksTo = linksToPage ? book.getLinksTo() : null;
+    CountingWriter out = new CountingWriter();
+    NavigationTreeRenderer.writeNavigationTree(
+        servletContext,
+        request,
+        response,
+        newContent(out),
+        book.getRoot(),
+        false,
+        false,
+        includeElements,
+        null,
+        null,
+        null,
+        null,
+        linksTo == null ? null : linksTo.getBookRef().getDomain(),
+        linksTo == null ? null : linksTo.getBookRef().getPath(),
+        linksTo == null ? null : linksTo.getPath().toString(),
+        maxDepth
+    );
+    return out.getCount();
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html;
+
+import com.aoapps.net.URIEncoder;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the id generation in {@link PageIndex}, called for every heading, element, and link.
+ * When {@link #indexed}, measures the combined view, otherwise the ids pass through unchanged.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PageIndexBenchmark {
+
+  @Param({"false", "true"})
+  public boolean indexed;
+
+  /**
+   * The indexes as returned by {@link PageIndex#indexOf(com.semanticcms.core.model.PageRef)}, or
+   * {@link PageIndex#NO_INDEX} when not {@link #indexed}.
+   */
+  private final int[] indexes = new int[Fixtures.SIZE];
+
+  private final StringBuilder out = new StringBuilder();
+
+  private int next;
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < Fixtures.SIZE; i++) {
+      // Spread across one to four digit page numbers
+      indexes[i] = indexed ? ((i * 1237) % 2000) : PageIndex.NO_INDEX;
+    }
+  }
+
+  private int next() {
+    int n = next;
+    next = (n + 1) & Fixtures.MASK;
+    return n;
+  }
+
+  @Benchmark
+  public String getRefId() {
+    int n = next();
+    return PageIndex.getRefId(indexes[n], Fixtures.IDS[n]);
+  }
+
+  @Benchmark
+  public StringBuilder appendIdInPage() throws IOException {
+    int n = next();
+    out.setLength(0);
+    PageIndex.appendIdInPage(indexes[n], Fixtures.IDS[n], out);
+    return out;
+  }
+
+  @Benchmark
+  public StringBuilder appendIdInPageInXhtmlAttribute() throws IOException {
+    int n = next();
+    out.setLength(0);
+    PageIndex.appendIdInPageInXhtmlAttribute(indexes[n], Fixtures.IDS[n], out);
+    return out;
+  }
+
+  /**
+   * The previous approach used for fragment links: building the id then encoding it.
+   */
+  @Benchmark
+  public StringBuilder encodeURIComponentGetRefId() {
+    int n = next();
+    out.setLength(0);
+    URIEncoder.encodeURIComponent(PageIndex.getRefId(indexes[n], Fixtures.IDS[n]), out);
+    return out;
+  }
+
+  @Benchmark
+  public StringBuilder appendIdInPageInURIComponent() {
+    int n = next();
+    out.setLength(0);
+    PageIndex.appendIdInPageInURIComponent(indexes[n], Fixtures.IDS[n], out);
+    return out;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks looking up the index of a page in a {@link PageIndex}, done for every link and tree node in a
+ * combined view.  Compares the primitive lookup to the boxed adapter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PageIndexLookupBenchmark {
+
+  /**
+   * The number of page references looked up, a power of two so benchmarks may cycle through them with a mask.
+   */
+  private static final int LOOKUPS = 1024;
+
+  @Param({"1000", "100000"})
+  public int pages;
+
+  private PageIndex pageIndex;
+
+  /**
+   * Randomly chosen pages, with one in eight from outside the index.
+   */
+  private final PageRef[] pageRefs = new PageRef[LOOKUPS];
+
+  private int next;
+
+  @Setup
+  public void setup() {
+    SyntheticBook book = new SyntheticBook(pages, 10, 6, 0, 0x5eed);
+    List<Page> pageList = new ArrayList<>(book.getPages().values());
+    pageIndex = new PageIndex(book.getRoot(), Collections.unmodifiableList(pageList));
+    PageRef[] outside = Fixtures.getPageRefs();
+    Random random = new Random(0x5eed);
+    for (int i = 0; i < LOOKUPS; i++) {
+      pageRefs[i] = (i % 8 == 7)
+          ? outside[random.nextInt(outside.length)]
+          : pageList.get(random.nextInt(pageList.size())).getPageRef();
+    }
+  }
+
+  private PageRef next() {
+    int n = next;
+    next = (n + 1) & (LOOKUPS - 1);
+    return pageRefs[n];
+  }
+
+  @Benchmark
+  public int indexOf() {
+    return pageIndex.indexOf(next());
+  }
+
+  @Benchmark
+  public Integer getPageIndex() {
+    return pageIndex.getPageIndex(next());
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html;
+
+import com.aoapps.html.any.AnyPalpableContent;
+import com.aoapps.html.servlet.DocumentEE;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.renderer.html.harness.InMemoryRenderer;
+import com.semanticcms.core.renderer.html.harness.ResponseRecorder;
+import com.semanticcms.core.renderer.html.harness.Servlets;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Common state for benchmarks of tree rendering over a {@link SyntheticBook}, captured by an
+ * {@link InMemoryRenderer}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public abstract class SyntheticBookBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  public int pages;
+
+  @Param("10")
+  public int fanOut;
+
+  @Param("6")
+  public int depth;
+
+  @Param("4")
+  public int elementsPerPage;
+
+  @Param({"false", "true"})
+  public boolean includeElements;
+
+  /**
+   * Discards all output, counting the characters written.
+   */
+  static final class CountingWriter extends Writer {
+
+    private long count;
+
+    long getCount() {
+      return count;
+    }
+
+    @Override
+    public void write(int c) {
+      count++;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+      count += len;
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+      count += len;
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) {
+      count += end - start;
+      return this;
+    }
+
+    @Override
+    public void flush() {
+      // Nothing to flush
+    }
+
+    @Override
+    public void close() {
+      // Nothing to close
+    }
+  }
+
+  protected SyntheticBook book;
+  protected ServletContext servletContext;
+  protected HttpServletRequest request;
+  protected HttpServletResponse response;
+  private InMemoryRenderer renderer;
+
+  @Setup(Level.Trial)
+  public void setupBook() {
+    book = new SyntheticBook(pages, fanOut, depth, elementsPerPage, 0x5eed);
+    servletContext = InMemoryRenderer.newServletContext(book.getPages());
+    renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+    PageRef rootRef = book.getRoot().getPageRef();
+    request = Servlets.newRequest(servletContext, rootRef.getBookRef().getPrefix() + rootRef.getPath());
+    response = new ResponseRecorder().getResponse();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownBook() {
+    renderer.uninstall();
+  }
+
+  /**
+   * Creates new content to render a tree into.
+   */
+  protected AnyPalpableContent<?, ?> newContent(Writer out) {
+    return new DocumentEE(servletContext, request, response, out).div()._c();
+  }
+}
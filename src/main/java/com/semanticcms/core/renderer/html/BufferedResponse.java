@@ -0,0 +1,372 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Captures the output of a response into a buffer instead of sending it, so the exact length is known before the
+ * first byte is sent.  Status and headers are passed through to the wrapped response.
+ *
+ * <p>The underlying byte arrays are pooled and reused between requests.  {@link #release()} must be called once the
+ * buffered output is no longer needed.</p>
+ */
+class BufferedResponse extends HttpServletResponseWrapper {
+
+  private static final String ACCEPT_RANGES_HEADER = "Accept-Ranges";
+
+  private static final String RANGE_HEADER = "Range";
+
+  private static final String IF_RANGE_HEADER = "If-Range";
+
+  private static final String CONTENT_RANGE_HEADER = "Content-Range";
+
+  private static final String BYTES_UNIT = "bytes";
+
+  /**
+   * The initial size of new buffers.
+   */
+  private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+  /**
+   * Buffers larger than this are not returned to the pool.
+   */
+  private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+  /**
+   * The maximum number of buffers retained in the pool.
+   */
+  private static final int MAX_POOLED_BUFFERS = 32;
+
+  private static final BlockingQueue<byte[]> bufferPool = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
+  private byte[] buffer;
+  private int length;
+
+  private ServletOutputStream outputStream;
+  private PrintWriter writer;
+
+  BufferedResponse(HttpServletResponse response) {
+    super(response);
+    byte[] pooled = bufferPool.poll();
+    buffer = (pooled != null) ? pooled : new byte[INITIAL_BUFFER_SIZE];
+  }
+
+  private void ensureCapacity(int minCapacity) {
+    if (minCapacity < 0) {
+      throw new OutOfMemoryError("Buffered response too large");
+    }
+    if (minCapacity > buffer.length) {
+      int newCapacity = buffer.length << 1;
+      if (newCapacity < minCapacity) {
+        newCapacity = minCapacity;
+      }
+      buffer = Arrays.copyOf(buffer, newCapacity);
+    }
+  }
+
+  private class BufferOutputStream extends ServletOutputStream {
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      throw new IllegalStateException("Asynchronous output not supported by buffered response");
+    }
+
+    @Override
+    public void write(int b) {
+      ensureCapacity(length + 1);
+      buffer[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      ensureCapacity(length + len);
+      System.arraycopy(b, off, buffer, length, len);
+      length += len;
+    }
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() {
+    if (writer != null) {
+      throw new IllegalStateException("getWriter() has already been called");
+    }
+    if (outputStream == null) {
+      outputStream = new BufferOutputStream();
+    }
+    return outputStream;
+  }
+
+  @Override
+  public PrintWriter getWriter() throws UnsupportedEncodingException {
+    if (outputStream != null) {
+      throw new IllegalStateException("getOutputStream() has already been called");
+    }
+    if (writer == null) {
+      writer = new PrintWriter(new OutputStreamWriter(new BufferOutputStream(), getCharacterEncoding()));
+    }
+    return writer;
+  }
+
+  /**
+   * The length is determined from the buffered output.
+   */
+  @Override
+  public void setContentLength(int len) {
+    // Ignored
+  }
+
+  /**
+   * The length is determined from the buffered output.
+   */
+  @Override
+  public void setContentLengthLong(long len) {
+    // Ignored
+  }
+
+  /**
+   * Flushes any characters written to the buffer, but sends nothing.
+   */
+  @Override
+  public void flushBuffer() {
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  /**
+   * Nothing is sent until the buffered output is {@linkplain #send(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, byte[], int, long) sent},
+   * so this is only committed when the wrapped response has been committed directly, such as by
+   * {@link #sendError(int)} or {@link #sendRedirect(java.lang.String)}.
+   */
+  @Override
+  public boolean isCommitted() {
+    return getResponse().isCommitted();
+  }
+
+  @Override
+  public void resetBuffer() {
+    if (writer != null) {
+      writer.flush();
+    }
+    length = 0;
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    resetBuffer();
+  }
+
+  /**
+   * Flushes any characters written and gets the buffer.  The buffer remains owned by this response and must not be
+   * used after {@link #release()}.
+   *
+   * @see  #getLength()
+   */
+  byte[] getBuffer() {
+    flushBuffer();
+    return buffer;
+  }
+
+  /**
+   * Flushes any characters written and gets the number of bytes buffered.
+   */
+  int getLength() {
+    flushBuffer();
+    return length;
+  }
+
+  /**
+   * Releases the buffer back to the pool.  This response must not be used after release.
+   */
+  void release() {
+    byte[] released = buffer;
+    if (released != null) {
+      buffer = null;
+      if (released.length <= MAX_POOLED_BUFFER_SIZE) {
+        bufferPool.offer(released);
+      }
+    }
+  }
+
+  /**
+   * Sends buffered output with its exact {@code Content-Length}.  When the output stream is available, a single byte
+   * {@code Range} of a {@code GET} request is sent as {@link HttpServletResponse#SC_PARTIAL_CONTENT}.  Multiple
+   * ranges, invalid ranges, and ranges conditional on a non-matching {@code If-Range} are ignored and the full
+   * content is sent.  Ranges are only honored when the status is {@link HttpServletResponse#SC_OK}, so an error page
+   * is always sent in full with its own status.  Only the headers are sent for a {@code HEAD} request.
+   *
+   * @param  lastModified  The last modified time used to validate {@code If-Range} or {@code -1} when unknown
+   */
+  static void send(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      byte[] bytes,
+      int len,
+      long lastModified
+  ) throws IOException {
+    ServletOutputStream out;
+    try {
+      out = response.getOutputStream();
+    } catch (IllegalStateException e) {
+      // getWriter() already called, send as characters in the same encoding, which is the same length in bytes
+      String encoding = response.getCharacterEncoding();
+      response.setContentLength(len);
+      if (!"HEAD".equals(request.getMethod())) {
+        response.getWriter().write(new String(bytes, 0, len, Charset.forName(encoding)));
+      }
+      return;
+    }
+    boolean ok = response.getStatus() == HttpServletResponse.SC_OK;
+    if (ok) {
+      response.setHeader(ACCEPT_RANGES_HEADER, BYTES_UNIT);
+    }
+    String range = request.getHeader(RANGE_HEADER);
+    if (
+        range != null
+            && ok
+            && "GET".equals(request.getMethod())
+            && ifRangeMatches(request, lastModified)
+    ) {
+      long[] startEnd = parseRange(range, len);
+      if (startEnd == UNSATISFIABLE) {
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        response.setHeader(CONTENT_RANGE_HEADER, BYTES_UNIT + " */" + len);
+        response.setContentLength(0);
+        return;
+      }
+      if (startEnd != null) {
+        int start = (int) startEnd[0];
+        int end = (int) startEnd[1];
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setHeader(CONTENT_RANGE_HEADER, BYTES_UNIT + ' ' + start + '-' + end + '/' + len);
+        response.setContentLength(end - start + 1);
+        out.write(bytes, start, end - start + 1);
+        return;
+      }
+    }
+    response.setContentLength(len);
+    if (!"HEAD".equals(request.getMethod())) {
+      out.write(bytes, 0, len);
+    }
+  }
+
+  /**
+   * Checks if there is no {@code If-Range} header or it matches the last modified time exactly.
+   * Entity tags are never matched since none are generated.
+   */
+  private static boolean ifRangeMatches(HttpServletRequest request, long lastModified) {
+    if (request.getHeader(IF_RANGE_HEADER) == null) {
+      return true;
+    }
+    if (lastModified == -1) {
+      return false;
+    }
+    try {
+      return request.getDateHeader(IF_RANGE_HEADER) == lastModified;
+    } catch (IllegalArgumentException e) {
+      // Entity tag or unparseable date
+      return false;
+    }
+  }
+
+  private static final long[] UNSATISFIABLE = new long[0];
+
+  /**
+   * Parses a single byte range.
+   *
+   * @return  The inclusive start and end positions, {@link #UNSATISFIABLE} when the range does not overlap the content,
+   *          or {@code null} when the range is invalid, not in bytes, or has multiple ranges and should be ignored.
+   */
+  private static long[] parseRange(String range, int len) {
+    int eq = range.indexOf('=');
+    if (eq == -1 || !BYTES_UNIT.equalsIgnoreCase(range.substring(0, eq).trim())) {
+      return null;
+    }
+    String spec = range.substring(eq + 1).trim();
+    if (spec.indexOf(',') != -1) {
+      return null;
+    }
+    int dash = spec.indexOf('-');
+    if (dash == -1) {
+      return null;
+    }
+    String first = spec.substring(0, dash).trim();
+    String last = spec.substring(dash + 1).trim();
+    try {
+      if (first.isEmpty()) {
+        // Suffix range: last N bytes
+        if (last.isEmpty()) {
+          return null;
+        }
+        long suffixLength = Long.parseLong(last);
+        if (suffixLength < 0) {
+          return null;
+        }
+        if (suffixLength == 0 || len == 0) {
+          return UNSATISFIABLE;
+        }
+        return new long[] {Math.max(0, len - suffixLength), len - 1L};
+      }
+      long start = Long.parseLong(first);
+      if (start < 0) {
+        return null;
+      }
+      long end;
+      if (last.isEmpty()) {
+        end = len - 1L;
+      } else {
+        end = Long.parseLong(last);
+        if (end < start) {
+          return null;
+        }
+        end = Math.min(end, len - 1L);
+      }
+      if (start >= len) {
+        return UNSATISFIABLE;
+      }
+      return new long[] {start, end};
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
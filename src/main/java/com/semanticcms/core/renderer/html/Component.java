@@ -1,6 +1,6 @@
 /*
  * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
- * Copyright (C) 2016, 2017, 2019, 2020, 2021, 2022, 2024  AO Industries, Inc.
+ * Copyright (C) 2016, 2017, 2019, 2020, 2021, 2022, 2024, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -26,6 +26,8 @@ package com.semanticcms.core.renderer.html;
 import com.aoapps.html.servlet.DocumentEE;
 import com.semanticcms.core.model.Page;
 import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -60,4 +62,29 @@ public interface Component {
       Page page,
       ComponentPosition position
   ) throws ServletException, IOException;
+
+  /**
+   * Gets the positions this component applies to.  The component is only called for these positions.
+   * This is read once when the component is registered.
+   *
+   * <p><b>Implementation Note:</b><br>
+   * returns all positions by default</p>
+   */
+  default Set<ComponentPosition> getPositions() {
+    return EnumSet.allOf(ComponentPosition.class);
+  }
+
+  /**
+   * Gets the names of the views this component applies to or {@code null} for all views.  A component limited to
+   * specific views is not called when there is no view, such as during error handling.
+   * This is read once when the component is registered.
+   *
+   * <p><b>Implementation Note:</b><br>
+   * returns {@code null} by default</p>
+   *
+   * @see  View#getName()
+   */
+  default Set<String> getViewNames() {
+    return null;
+  }
 }
@@ -1,6 +1,6 @@
 /*
  * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
- * Copyright (C) 2016, 2017, 2020, 2021, 2022  AO Industries, Inc.
+ * Copyright (C) 2016, 2017, 2020, 2021, 2022, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -26,7 +26,6 @@ package com.semanticcms.core.renderer.html;
 import com.aoapps.html.servlet.DocumentEE;
 import com.semanticcms.core.model.Page;
 import java.io.IOException;
-import java.util.List;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -42,6 +41,14 @@ public final class ComponentUtils {
     throw new AssertionError();
   }
 
+  /**
+   * Calls the components that apply to the given view and position.
+   *
+   * @param  reverse  calls the components in reverse order when {@code true}
+   *
+   * @see  Component#getPositions()
+   * @see  Component#getViewNames()
+   */
   public static void doComponents(
       ServletContext servletContext,
       HttpServletRequest request,
@@ -52,30 +59,20 @@ public final class ComponentUtils {
       ComponentPosition position,
       boolean reverse
   ) throws ServletException, IOException {
-    List<Component> components = HtmlRenderer.getInstance(servletContext).getComponents();
-    if (reverse) {
-      for (int i = components.size() - 1; i >= 0; i--) {
-        components.get(i).doComponent(
-            servletContext,
-            request,
-            response,
-            document,
-            view,
-            page,
-            position
-        );
-      }
-    } else {
-      for (Component component : components) {
-        component.doComponent(
-            servletContext,
-            request,
-            response,
-            document,
-            view,
-            page,
-            position
-        );
+    Component[] components = HtmlRenderer.getInstance(servletContext).getSnapshot().getComponents(view, position, reverse);
+    if (components.length != 0) {
+      try (RenderTrace.Span span = RenderTrace.begin(request, "doComponents", position)) {
+        for (Component component : components) {
+          component.doComponent(
+              servletContext,
+              request,
+              response,
+              document,
+              view,
+              page,
+              position
+          );
+        }
       }
     }
   }
@@ -1,6 +1,6 @@
 /*
  * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
- * Copyright (C) 2016, 2017, 2019, 2020, 2021, 2022  AO Industries, Inc.
+ * Copyright (C) 2016, 2017, 2019, 2020, 2021, 2022, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -27,8 +27,6 @@ import com.aoapps.html.any.AnyLI_c;
 import com.aoapps.html.any.AnyPalpableContent;
 import com.aoapps.html.any.AnyUL_c;
 import com.aoapps.net.URIEncoder;
-import com.semanticcms.core.controller.CapturePage;
-import com.semanticcms.core.controller.SemanticCMS;
 import com.semanticcms.core.model.ChildRef;
 import com.semanticcms.core.model.Element;
 import com.semanticcms.core.model.Node;
@@ -90,7 +88,7 @@ public final class ElementFilterTree {
       ServletContext servletContext,
       HttpServletRequest request,
       HttpServletResponse response,
-      SemanticCMS semanticCms,
+      HtmlRenderer htmlRenderer,
       ElementFilter elementFilter,
       Set<Node> nodesWithMatches,
       Node node,
@@ -112,7 +110,7 @@ public final class ElementFilterTree {
     }
     if (includeElements) {
       for (Element childElem : childElements) {
-        if (findElements(servletContext, request, response, semanticCms, elementFilter, nodesWithMatches, childElem, includeElements)) {
+        if (findElements(servletContext, request, response, htmlRenderer, elementFilter, nodesWithMatches, childElem, includeElements)) {
           hasMatch = true;
         }
       }
@@ -133,9 +131,9 @@ public final class ElementFilterTree {
       for (ChildRef childRef : ((Page) node).getChildRefs()) {
         PageRef childPageRef = childRef.getPageRef();
         // Child is in an accessible book
-        if (semanticCms.getBook(childPageRef.getBookRef()).isAccessible()) {
-          Page child = CapturePage.capturePage(servletContext, request, response, childPageRef, CaptureLevel.META);
-          if (findElements(servletContext, request, response, semanticCms, elementFilter, nodesWithMatches, child, includeElements)) {
+        if (htmlRenderer.isAccessible(childPageRef.getBookRef())) {
+          Page child = htmlRenderer.capture(servletContext, request, response, childPageRef, CaptureLevel.META);
+          if (findElements(servletContext, request, response, htmlRenderer, elementFilter, nodesWithMatches, child, includeElements)) {
             hasMatch = true;
           }
         }
@@ -178,14 +176,12 @@ public final class ElementFilterTree {
     AnyLI_c<?, ?, ?> li_c;
     if (ul__ != null) {
       StringBuilder url = new StringBuilder();
-      Integer index = pageIndex == null ? null : pageIndex.getPageIndex(pageRef);
-      if (index != null) {
+      int index = pageIndex == null ? PageIndex.NO_INDEX : pageIndex.indexOf(pageRef);
+      if (index != PageIndex.NO_INDEX) {
         url.append('#');
-        URIEncoder.encodeURIComponent(
-            PageIndex.getRefId(
-                index,
-                element == null ? null : element.getId()
-            ),
+        PageIndex.appendIdInPageInURIComponent(
+            index,
+            element == null ? null : element.getId(),
             url
         );
       } else {
@@ -204,7 +200,7 @@ public final class ElementFilterTree {
           ._c();
       li_c.a(response.encodeURL(url.toString())).__(a -> {
         a.text(node);
-        if (index != null) {
+        if (index != PageIndex.NO_INDEX) {
           a.sup__any(sup -> sup
               .text('[').text(index + 1).text(']')
           );
@@ -251,7 +247,7 @@ public final class ElementFilterTree {
           servletContext,
           request,
           response,
-          SemanticCMS.getInstance(servletContext),
+          HtmlRenderer.getInstance(servletContext),
           elementFilter,
           nodesWithMatches,
           root,
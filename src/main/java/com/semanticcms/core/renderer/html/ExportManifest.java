@@ -0,0 +1,149 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records, for each exported file, the pages it depended on and their stamps when rendered.
+ * Used by incremental exports to only render files whose dependencies have changed.
+ *
+ * @see  Exporter#exportIncremental(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.lang.Iterable, java.lang.Iterable)
+ */
+final class ExportManifest {
+
+  private static final Logger logger = Logger.getLogger(ExportManifest.class.getName());
+
+  /**
+   * The name of the manifest file, stored in the root of the output directory.
+   */
+  static final String FILE_NAME = ".semanticcms-export-manifest";
+
+  private static final int MAGIC = 0x53434d45; // "SCME"
+
+  private static final int VERSION = 1;
+
+  private final long configurationStamp;
+
+  /**
+   * The dependencies and their stamps, by file relative to the output directory.
+   */
+  private final Map<String, Map<String, Long>> files;
+
+  ExportManifest(long configurationStamp) {
+    this.configurationStamp = configurationStamp;
+    this.files = new LinkedHashMap<>();
+  }
+
+  private ExportManifest(long configurationStamp, Map<String, Map<String, Long>> files) {
+    this.configurationStamp = configurationStamp;
+    this.files = files;
+  }
+
+  /**
+   * Reads a manifest.
+   *
+   * @return  The manifest or {@code null} when there is no usable manifest, including when written with a different
+   *          configuration stamp, in which case every file is rendered.
+   */
+  static ExportManifest read(Path file, long configurationStamp) throws IOException {
+    try (
+        InputStream in = Files.newInputStream(file);
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in))
+    ) {
+      if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+        logger.log(Level.WARNING, "Ignoring unrecognized export manifest: {0}", file);
+        return null;
+      }
+      if (data.readLong() != configurationStamp) {
+        logger.log(Level.INFO, "Configuration changed, ignoring export manifest: {0}", file);
+        return null;
+      }
+      int fileCount = data.readInt();
+      Map<String, Map<String, Long>> files = new HashMap<>(fileCount * 4 / 3 + 1);
+      for (int i = 0; i < fileCount; i++) {
+        String name = data.readUTF();
+        int depCount = data.readInt();
+        Map<String, Long> dependencies = new HashMap<>(depCount * 4 / 3 + 1);
+        for (int j = 0; j < depCount; j++) {
+          dependencies.put(data.readUTF(), data.readLong());
+        }
+        files.put(name, dependencies);
+      }
+      return new ExportManifest(configurationStamp, files);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes this manifest, replacing any existing manifest atomically.
+   */
+  void write(Path file) throws IOException {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (DataOutputStream data = new DataOutputStream(bout)) {
+      data.writeInt(MAGIC);
+      data.writeInt(VERSION);
+      data.writeLong(configurationStamp);
+      data.writeInt(files.size());
+      for (Map.Entry<String, Map<String, Long>> entry : files.entrySet()) {
+        data.writeUTF(entry.getKey());
+        Map<String, Long> dependencies = entry.getValue();
+        data.writeInt(dependencies.size());
+        for (Map.Entry<String, Long> dependency : dependencies.entrySet()) {
+          data.writeUTF(dependency.getKey());
+          data.writeLong(dependency.getValue());
+        }
+      }
+    }
+    Exporter.write(file, bout.toByteArray());
+  }
+
+  /**
+   * Checks if a file was rendered with exactly the given dependencies and stamps.
+   */
+  boolean isUnchanged(String name, Map<String, Long> dependencies) {
+    return dependencies.equals(files.get(name));
+  }
+
+  /**
+   * Records the dependencies of a file.
+   */
+  void put(String name, Map<String, Long> dependencies) {
+    files.put(name, Collections.unmodifiableMap(dependencies));
+  }
+}
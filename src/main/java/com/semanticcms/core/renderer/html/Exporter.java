@@ -0,0 +1,1036 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import com.aoapps.net.URIEncoder;
+import com.semanticcms.core.controller.CapturePage;
+import com.semanticcms.core.controller.PageDags;
+import com.semanticcms.core.controller.PageUtils;
+import com.semanticcms.core.model.ChildRef;
+import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.Link;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.model.PageReferrer;
+import com.semanticcms.core.pages.CaptureLevel;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import org.joda.time.ReadableInstant;
+
+/**
+ * Exports pages to static HTML files, rendering in-process instead of crawling the site over HTTP.
+ * Pages are rendered one at a time on the request thread, each render
+ * {@linkplain Headers#isExporting(javax.servlet.http.HttpServletRequest) exporting}.
+ *
+ * <p>Writing the rendered files may be done concurrently on a bounded pool of threads, by the number of threads given
+ * to {@link #Exporter(javax.servlet.ServletContext, java.nio.file.Path, int)}, so the next page is rendered while
+ * the previous are written.  Only the files are written by the pool: the request is only used, and pages only
+ * dispatched, on the request thread, as required by the Servlet specification.</p>
+ *
+ * <p>An export is performed within a request, which remains in use until
+ * {@link #export(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.lang.Iterable, java.lang.Iterable)}
+ * returns.  Each page is rendered on its own isolated copy of the request: attributes set while rendering do not
+ * affect the original request or each other, there is no session or authenticated user, and the only parameter is
+ * {@link HtmlRenderer#VIEW_PARAM}.  Status, headers, and cookies set while rendering are not sent.</p>
+ *
+ * <p>The default view of a page is written to {@code <path>.html}, or {@code <path>index.html} for paths ending in a
+ * slash.  Other views are written to {@code <path>.<view>.html}.  Each file is replaced atomically.  Pages that do
+ * not render with {@link HttpServletResponse#SC_OK} are logged and skipped.</p>
+ *
+ * <p>Each export records a manifest of the pages every file depended on: the page itself, its parents, its
+ * children, and the pages it links to.  An {@linkplain #exportIncremental(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.lang.Iterable, java.lang.Iterable) incremental export}
+ * only renders files whose dependencies have changed since the last export.</p>
+ */
+public final class Exporter {
+
+  private static final Logger logger = Logger.getLogger(Exporter.class.getName());
+
+  /**
+   * The default number of threads writing files, which writes each file on the request thread after it is rendered.
+   */
+  public static final int DEFAULT_THREADS = 1;
+
+  private static final String INDEX = "index";
+
+  private final ServletContext servletContext;
+  private final Path outputDirectory;
+  private final int threads;
+
+  /**
+   * @param  threads  The maximum number of files written concurrently, while pages continue to be rendered on the
+   *                  request thread.  A value of one writes each file on the request thread.
+   */
+  public Exporter(ServletContext servletContext, Path outputDirectory, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads < 1: " + threads);
+    }
+    this.servletContext = servletContext;
+    this.outputDirectory = outputDirectory.toAbsolutePath().normalize();
+    this.threads = threads;
+  }
+
+  /**
+   * Writes each file on the request thread.
+   *
+   * @see  #DEFAULT_THREADS
+   */
+  public Exporter(ServletContext servletContext, Path outputDirectory) {
+    this(servletContext, outputDirectory, DEFAULT_THREADS);
+  }
+
+  /**
+   * Gets the directory files are written to.
+   */
+  public Path getOutputDirectory() {
+    return outputDirectory;
+  }
+
+  /**
+   * Gets the maximum number of files written concurrently.
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Exports the given pages and all their descendants.  Stops on the first failure.
+   *
+   * @param  rootPageRefs  The roots of the page DAGs to export, such as the root page of each book
+   * @param  views         The views to export or {@code null} for only the default view.  Each page is only
+   *                       exported in the views {@linkplain View#isApplicable(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page) applicable}
+   *                       to it.
+   *
+   * @return  The number of files written
+   */
+  public int export(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Iterable<? extends PageRef> rootPageRefs,
+      Iterable<? extends View> views
+  ) throws ServletException, IOException {
+    return export(request, response, rootPageRefs, views, false);
+  }
+
+  /**
+   * Exports the given pages and all their descendants, only rendering files that are missing or whose
+   * dependencies have changed since the last export.  Falls back to a full export when there is no manifest or
+   * the registered views, themes, scripts, or head includes have changed.
+   *
+   * <p>A page's dependencies are the page itself, its parents, its children, and the pages it links to.  Each is
+   * stamped by its modified date, title, parents, children, and links.  Views whose output depends on anything
+   * else, such as the content of pages further away in the navigation tree, should be exported in full.</p>
+   *
+   * <p>Changes to the content of a page are only detected through the
+   * {@linkplain HtmlRenderer#getLastModified(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.renderer.html.View, com.semanticcms.core.model.Page) last modified time}
+   * of a view that is a {@linkplain View#isLastModifiedValidator() last modified validator}, such as one derived from
+   * the modified times of the page sources.  For other views, only changes to the metadata and structure above are
+   * detected: an edit to the body of a page that does not also change its modified date keeps the previously
+   * exported file.  Use {@link #export(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.lang.Iterable, java.lang.Iterable)}
+   * to force a full export, which also replaces the manifest.</p>
+   *
+   * <p>Files of pages no longer exported are left in place.</p>
+   *
+   * @see  #export(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.lang.Iterable, java.lang.Iterable)
+   */
+  public int exportIncremental(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Iterable<? extends PageRef> rootPageRefs,
+      Iterable<? extends View> views
+  ) throws ServletException, IOException {
+    return export(request, response, rootPageRefs, views, true);
+  }
+
+  private int export(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Iterable<? extends PageRef> rootPageRefs,
+      Iterable<? extends View> views,
+      boolean incremental
+  ) throws ServletException, IOException {
+    if (views == null) {
+      View defaultView = HtmlRenderer.getInstance(servletContext).getViewsByName().get(Link.DEFAULT_VIEW_NAME);
+      if (defaultView == null) {
+        throw new ServletException("Default view not found: " + Link.DEFAULT_VIEW_NAME);
+      }
+      views = Collections.singleton(defaultView);
+    }
+    // Walk the page DAGs at META level, which is required for view applicability
+    Map<PageRef, Page> pages = new LinkedHashMap<>();
+    for (PageRef rootPageRef : rootPageRefs) {
+      Page rootPage = CapturePage.capturePage(servletContext, request, response, rootPageRef, CaptureLevel.META);
+      for (Page page : PageDags.convertPageDagToList(servletContext, request, response, rootPage, CaptureLevel.META)) {
+        pages.putIfAbsent(page.getPageRef(), page);
+      }
+    }
+    Map<PageRef, Long> stamps = getStamps(request, response, pages);
+    HtmlRenderer htmlRenderer = HtmlRenderer.getInstance(servletContext);
+    List<Task> tasks = new ArrayList<>();
+    for (Page page : pages.values()) {
+      Map<String, Long> dependencies = null;
+      for (View view : views) {
+        if (view.isApplicable(servletContext, request, response, page)) {
+          if (dependencies == null) {
+            dependencies = getDependencies(page, stamps);
+          }
+          Map<String, Long> viewDependencies = dependencies;
+          // The last modified time of the view, when known, detects changes to the content of the page
+          long lastModified = htmlRenderer.getLastModified(servletContext, request, response, view, page);
+          if (lastModified != -1) {
+            viewDependencies = new HashMap<>(dependencies);
+            viewDependencies.put(LAST_MODIFIED_DEPENDENCY, lastModified);
+          }
+          PageRef pageRef = page.getPageRef();
+          tasks.add(new Task(pageRef, view, getFile(pageRef, view.isDefault() ? null : view.getName()), viewDependencies));
+        }
+      }
+    }
+    // Only render changed files
+    Path manifestFile = outputDirectory.resolve(ExportManifest.FILE_NAME);
+    long configurationStamp = getConfigurationStamp();
+    ExportManifest oldManifest = incremental ? ExportManifest.read(manifestFile, configurationStamp) : null;
+    List<Task> changed;
+    List<Task> unchanged;
+    if (oldManifest == null) {
+      changed = tasks;
+      unchanged = Collections.emptyList();
+    } else {
+      changed = new ArrayList<>();
+      unchanged = new ArrayList<>();
+      for (Task task : tasks) {
+        if (
+            oldManifest.isUnchanged(task.getName(outputDirectory), task.getDependencies())
+                && Files.exists(task.getFile())
+        ) {
+          unchanged.add(task);
+        } else {
+          changed.add(task);
+        }
+      }
+      if (logger.isLoggable(Level.INFO)) {
+        logger.log(Level.INFO, "Rendering {0} of {1} files", new Object[] {changed.size(), tasks.size()});
+      }
+    }
+    int written = execute(request, response, changed);
+    // Record dependencies of all current files, omitting skipped so they are retried
+    ExportManifest newManifest = new ExportManifest(configurationStamp);
+    for (Task task : unchanged) {
+      newManifest.put(task.getName(outputDirectory), task.getDependencies());
+    }
+    for (Task task : changed) {
+      if (task.isWritten()) {
+        newManifest.put(task.getName(outputDirectory), task.getDependencies());
+      }
+    }
+    newManifest.write(manifestFile);
+    return written;
+  }
+
+  /**
+   * The dependency recording the last modified time of the page in a view.  Never the same as a page reference,
+   * which always contains a colon.
+   */
+  private static final String LAST_MODIFIED_DEPENDENCY = "lastModified";
+
+  /**
+   * The stamp of a page that is in a missing book.
+   */
+  private static final long MISSING_STAMP = 0;
+
+  /**
+   * Gets the stamps of all pages and their dependencies, capturing any dependencies not already captured.
+   */
+  private Map<PageRef, Long> getStamps(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Map<PageRef, Page> pages
+  ) throws ServletException, IOException {
+    Map<PageRef, Long> stamps = new HashMap<>(pages.size() * 4 / 3 + 1);
+    for (Page page : pages.values()) {
+      stamps.put(page.getPageRef(), getStamp(page));
+    }
+    Set<PageRef> uncaptured = new LinkedHashSet<>();
+    for (Page page : pages.values()) {
+      for (PageRef dependency : getDependencyRefs(page)) {
+        if (!stamps.containsKey(dependency)) {
+          uncaptured.add(dependency);
+        }
+      }
+    }
+    if (!uncaptured.isEmpty()) {
+      Map<PageRef, Page> captured = CapturePage.capturePages(
+          servletContext,
+          request,
+          response,
+          PageUtils.filterNotMissingBook(servletContext, uncaptured),
+          CaptureLevel.PAGE
+      );
+      for (PageRef pageRef : uncaptured) {
+        Page page = captured.get(pageRef);
+        stamps.put(pageRef, (page == null) ? MISSING_STAMP : getStamp(page));
+      }
+    }
+    return stamps;
+  }
+
+  /**
+   * Gets the pages a page depends on: itself, its parents, its children, and the pages it links to.
+   */
+  private static Set<PageRef> getDependencyRefs(Page page) {
+    Set<PageRef> dependencies = new LinkedHashSet<>();
+    dependencies.add(page.getPageRef());
+    for (PageReferrer parentRef : page.getParentRefs()) {
+      dependencies.add(parentRef.getPageRef());
+    }
+    for (ChildRef childRef : page.getChildRefs()) {
+      dependencies.add(childRef.getPageRef());
+    }
+    for (PageReferrer link : page.getPageLinks()) {
+      dependencies.add(link.getPageRef());
+    }
+    for (Element element : page.getElements()) {
+      for (PageReferrer link : element.getPageLinks()) {
+        dependencies.add(link.getPageRef());
+      }
+    }
+    return dependencies;
+  }
+
+  private static Map<String, Long> getDependencies(Page page, Map<PageRef, Long> stamps) {
+    Set<PageRef> dependencyRefs = getDependencyRefs(page);
+    Map<String, Long> dependencies = new HashMap<>(dependencyRefs.size() * 4 / 3 + 1);
+    for (PageRef dependencyRef : dependencyRefs) {
+      Long stamp = stamps.get(dependencyRef);
+      if (stamp == null) {
+        throw new AssertionError();
+      }
+      dependencies.put(dependencyRef.toString(), stamp);
+    }
+    return dependencies;
+  }
+
+  /**
+   * Gets the stamp of a page from its modified date, title, parents, children, and links.
+   * The structure is order-independent and included since it affects the navigation of related pages.
+   *
+   * <p>The modified date is metadata entered with the page, so this does not change on edits to the body alone.</p>
+   */
+  static long getStamp(Page page) {
+    ReadableInstant dateModified = page.getDateModified();
+    long stamp = (dateModified == null) ? Long.MIN_VALUE : dateModified.getMillis();
+    stamp = stamp * 31 + Objects.hashCode(page.getTitle());
+    long structure = 0;
+    for (PageReferrer parentRef : page.getParentRefs()) {
+      structure += mix(1, parentRef.getPageRef().hashCode());
+    }
+    for (ChildRef childRef : page.getChildRefs()) {
+      structure += mix(2, childRef.getPageRef().hashCode());
+    }
+    for (PageReferrer link : page.getPageLinks()) {
+      structure += mix(3, link.getPageRef().hashCode());
+    }
+    for (Element element : page.getElements()) {
+      for (PageReferrer link : element.getPageLinks()) {
+        structure += mix(3, link.getPageRef().hashCode());
+      }
+    }
+    return stamp * 31 + structure;
+  }
+
+  private static long mix(int kind, int hash) {
+    long h = ((long) kind << 32) ^ (hash & 0xffffffffL);
+    h *= 0x9E3779B97F4A7C15L;
+    return h ^ (h >>> 29);
+  }
+
+  /**
+   * Gets a stamp of the registered views, themes, scripts, and head includes.  When this changes, all files
+   * are rendered.
+   */
+  private long getConfigurationStamp() {
+    HtmlRenderer.Snapshot snapshot = HtmlRenderer.getInstance(servletContext).getSnapshot();
+    long stamp = 1;
+    for (String viewName : snapshot.getViewsByName().keySet()) {
+      stamp = stamp * 31 + viewName.hashCode();
+    }
+    for (String themeName : snapshot.getThemes().keySet()) {
+      stamp = stamp * 31 + themeName.hashCode();
+    }
+    stamp = stamp * 31 + snapshot.getScripts().hashCode();
+    stamp = stamp * 31 + snapshot.getHeadIncludes().hashCode();
+    return stamp;
+  }
+
+  /**
+   * A single page in a single view to be exported.
+   */
+  static final class Task {
+
+    private final PageRef pageRef;
+    private final View view;
+    private final Path file;
+    private final Map<String, Long> dependencies;
+    private volatile boolean written;
+
+    Task(PageRef pageRef, View view, Path file, Map<String, Long> dependencies) {
+      this.pageRef = pageRef;
+      this.view = view;
+      this.file = file;
+      this.dependencies = dependencies;
+    }
+
+    PageRef getPageRef() {
+      return pageRef;
+    }
+
+    View getView() {
+      return view;
+    }
+
+    Path getFile() {
+      return file;
+    }
+
+    /**
+     * Gets the name of the file relative to the output directory, as recorded in the manifest.
+     */
+    String getName(Path outputDirectory) {
+      return outputDirectory.relativize(file).toString();
+    }
+
+    /**
+     * Gets the stamps of the dependencies, by page.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Shared between views of a page, not modified
+    Map<String, Long> getDependencies() {
+      return dependencies;
+    }
+
+    /**
+     * Checks if the file has been written.
+     */
+    boolean isWritten() {
+      return written;
+    }
+  }
+
+  /**
+   * Renders the tasks on the request thread, writing the files on the request thread or on a bounded pool of threads,
+   * waiting for all to complete.
+   *
+   * @return  The number of files written
+   */
+  private int execute(HttpServletRequest request, HttpServletResponse response, Collection<Task> tasks)
+      throws ServletException, IOException {
+    if (tasks.isEmpty()) {
+      return 0;
+    }
+    if (threads == 1) {
+      int written = 0;
+      for (Task task : tasks) {
+        if (exportPage(request, response, task)) {
+          written++;
+        }
+      }
+      return written;
+    }
+    AtomicInteger threadNum = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(threads, tasks.size()),
+        r -> {
+          Thread thread = new Thread(r, Exporter.class.getName() + "-" + threadNum.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+    try {
+      // Bounds the rendered pages held in memory while waiting to be written
+      Semaphore pending = new Semaphore(threads * 2);
+      List<Future<?>> futures = new ArrayList<>();
+      for (Task task : tasks) {
+        View view = task.getView();
+        byte[] bytes = render(request, response, task.getPageRef(), view.isDefault() ? null : view.getName());
+        if (bytes != null) {
+          try {
+            pending.acquire();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException ioErr = new InterruptedIOException();
+            ioErr.initCause(e);
+            throw ioErr;
+          }
+          futures.add(executor.submit(() -> {
+            try {
+              write(task.getFile(), bytes);
+              task.written = true;
+              return null;
+            } finally {
+              pending.release();
+            }
+          }));
+        }
+      }
+      for (Future<?> future : futures) {
+        getWritten(future);
+      }
+      return futures.size();
+    } finally {
+      executor.shutdownNow();
+      try {
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+          logger.warning("Waiting for export threads to complete");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static void getWritten(Future<?> future) throws ServletException, IOException {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      InterruptedIOException ioErr = new InterruptedIOException();
+      ioErr.initCause(e);
+      throw ioErr;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ServletException(cause);
+    }
+  }
+
+  /**
+   * Renders a single page to its file.
+   *
+   * @return  {@code true} when the file was written or {@code false} when skipped
+   */
+  private boolean exportPage(HttpServletRequest request, HttpServletResponse response, Task task)
+      throws ServletException, IOException {
+    View view = task.getView();
+    byte[] bytes = render(request, response, task.getPageRef(), view.isDefault() ? null : view.getName());
+    if (bytes == null) {
+      return false;
+    }
+    write(task.getFile(), bytes);
+    task.written = true;
+    return true;
+  }
+
+  /**
+   * Renders a page by forwarding an isolated, exporting request.
+   *
+   * @param  viewName  The view name or {@code null} for the default view
+   *
+   * @return  The rendered page or {@code null} when not rendered with {@link HttpServletResponse#SC_OK}
+   */
+  byte[] render(HttpServletRequest request, HttpServletResponse response, PageRef pageRef, String viewName)
+      throws ServletException, IOException {
+    StringBuilder path = new StringBuilder();
+    URIEncoder.encodeURI(pageRef.getBookRef().getPrefix() + pageRef.getPath(), path);
+    if (viewName != null) {
+      path.append('?').append(HtmlRenderer.VIEW_PARAM).append('=');
+      URIEncoder.encodeURIComponent(viewName, path);
+    }
+    RequestDispatcher dispatcher = servletContext.getRequestDispatcher(path.toString());
+    if (dispatcher == null) {
+      throw new ServletException("Unable to dispatch to page: " + pageRef);
+    }
+    ExportResponse exportResponse = new ExportResponse(response);
+    try {
+      dispatcher.forward(new ExportRequest(request, viewName), exportResponse);
+      int status = exportResponse.getStatus();
+      if (status != HttpServletResponse.SC_OK) {
+        if (logger.isLoggable(Level.WARNING)) {
+          logger.log(
+              Level.WARNING,
+              "Skipping page not rendered with status 200: pageRef = {0}, view = {1}, status = {2}",
+              new Object[] {pageRef, viewName == null ? Link.DEFAULT_VIEW_NAME : viewName, status}
+          );
+        }
+        return null;
+      }
+      byte[] buffer = exportResponse.getBuffer();
+      int length = exportResponse.getLength();
+      byte[] bytes = new byte[length];
+      System.arraycopy(buffer, 0, bytes, 0, length);
+      return bytes;
+    } finally {
+      exportResponse.release();
+    }
+  }
+
+  /**
+   * Gets the file for a page in the given view.
+   *
+   * @param  viewName  The view name or {@code null} for the default view
+   */
+  Path getFile(PageRef pageRef, String viewName) throws IOException {
+    String servletPath = pageRef.getBookRef().getPrefix() + pageRef.getPath();
+    StringBuilder name = new StringBuilder(servletPath.length() + INDEX.length() + HtmlRenderer.EXPORT_SUFFIX.length());
+    if (servletPath.startsWith("/")) {
+      name.append(servletPath, 1, servletPath.length());
+    } else {
+      name.append(servletPath);
+    }
+    if (name.length() == 0 || name.charAt(name.length() - 1) == '/') {
+      name.append(INDEX);
+    }
+    if (viewName != null) {
+      name.append('.').append(viewName);
+    }
+    name.append(HtmlRenderer.EXPORT_SUFFIX);
+    Path file = outputDirectory.resolve(name.toString()).normalize();
+    if (!file.startsWith(outputDirectory) || file.equals(outputDirectory)) {
+      throw new IOException("Export file outside of output directory: " + file);
+    }
+    return file;
+  }
+
+  /**
+   * Replaces the contents of a file atomically, creating parent directories as needed.
+   */
+  static void write(Path file, byte[] bytes) throws IOException {
+    Path dir = file.getParent();
+    Files.createDirectories(dir);
+    Path tmp = Files.createTempFile(dir, "." + file.getFileName(), ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        out.write(bytes);
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * An isolated, anonymous, exporting {@code GET} request for a single page.  Attributes are layered over the
+   * original request, with changes kept private to this request.
+   */
+  private static final class ExportRequest extends IsolatedRequest {
+
+    private static final String GET = "GET";
+
+    /**
+     * Headers that would make the render conditional, compressed, or per-user.
+     */
+    private static final Set<String> hiddenHeaders;
+
+    static {
+      Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+      set.add("Accept-Encoding");
+      set.add("Authorization");
+      set.add("Cookie");
+      set.add("If-Modified-Since");
+      set.add("If-None-Match");
+      set.add("If-Range");
+      set.add("Range");
+      set.add(Headers.EXPORTING_HEADER);
+      hiddenHeaders = Collections.unmodifiableSet(set);
+    }
+
+    private final String viewName;
+
+    private ExportRequest(HttpServletRequest request, String viewName) {
+      super(request);
+      this.viewName = viewName;
+    }
+
+    @Override
+    public String getMethod() {
+      return GET;
+    }
+
+    @Override
+    public String getHeader(String name) {
+      if (Headers.EXPORTING_HEADER.equalsIgnoreCase(name)) {
+        return Headers.EXPORTING_HEADER_VALUE;
+      }
+      return hiddenHeaders.contains(name) ? null : super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+      if (Headers.EXPORTING_HEADER.equalsIgnoreCase(name)) {
+        return Collections.enumeration(Collections.singleton(Headers.EXPORTING_HEADER_VALUE));
+      }
+      return hiddenHeaders.contains(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+      List<String> names = new ArrayList<>();
+      Enumeration<String> e = super.getHeaderNames();
+      if (e != null) {
+        while (e.hasMoreElements()) {
+          String name = e.nextElement();
+          if (!hiddenHeaders.contains(name)) {
+            names.add(name);
+          }
+        }
+      }
+      names.add(Headers.EXPORTING_HEADER);
+      return Collections.enumeration(names);
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+      if (Headers.EXPORTING_HEADER.equalsIgnoreCase(name)) {
+        throw new IllegalArgumentException("Not a date header: " + name);
+      }
+      return hiddenHeaders.contains(name) ? -1 : super.getDateHeader(name);
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+      String value = getHeader(name);
+      return (value == null) ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+      return null;
+    }
+
+    @Override
+    public String getQueryString() {
+      if (viewName == null) {
+        return null;
+      }
+      StringBuilder queryString = new StringBuilder();
+      queryString.append(HtmlRenderer.VIEW_PARAM).append('=');
+      URIEncoder.encodeURIComponent(viewName, queryString);
+      return queryString.toString();
+    }
+
+    @Override
+    public String getParameter(String name) {
+      return HtmlRenderer.VIEW_PARAM.equals(name) ? viewName : null;
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+      if (viewName == null) {
+        return Collections.emptyMap();
+      }
+      return Collections.singletonMap(HtmlRenderer.VIEW_PARAM, new String[] {viewName});
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+      if (viewName == null) {
+        return Collections.emptyEnumeration();
+      }
+      return Collections.enumeration(Collections.singleton(HtmlRenderer.VIEW_PARAM));
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+      return (viewName != null && HtmlRenderer.VIEW_PARAM.equals(name)) ? new String[] {viewName} : null;
+    }
+
+    @Override
+    public String getRemoteUser() {
+      return null;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+      return null;
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+      return false;
+    }
+
+    @Override
+    public String getAuthType() {
+      return null;
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+      return null;
+    }
+
+    @Override
+    public HttpSession getSession() {
+      return null;
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+      return null;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+      return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromCookie() {
+      return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromURL() {
+      return false;
+    }
+
+    @Override
+    @Deprecated
+    public boolean isRequestedSessionIdFromUrl() {
+      return false;
+    }
+  }
+
+  /**
+   * Buffers a single page, recording the status but discarding headers and cookies.
+   */
+  private static final class ExportResponse extends BufferedResponse {
+
+    private static final String CHARSET_PARAM = "charset=";
+
+    private int status = HttpServletResponse.SC_OK;
+    private String contentType;
+    private String characterEncoding;
+
+    private ExportResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    public boolean isCommitted() {
+      return false;
+    }
+
+    @Override
+    public void reset() {
+      resetBuffer();
+      status = HttpServletResponse.SC_OK;
+      contentType = null;
+      characterEncoding = null;
+    }
+
+    @Override
+    public void setStatus(int sc) {
+      status = sc;
+    }
+
+    @Override
+    @Deprecated
+    public void setStatus(int sc, String sm) {
+      status = sc;
+    }
+
+    @Override
+    public int getStatus() {
+      return status;
+    }
+
+    @Override
+    public void sendError(int sc) {
+      resetBuffer();
+      status = sc;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) {
+      sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+      resetBuffer();
+      status = HttpServletResponse.SC_FOUND;
+    }
+
+    @Override
+    public void setContentType(String type) {
+      contentType = type;
+      if (type != null) {
+        int pos = type.toLowerCase(Locale.ROOT).indexOf(CHARSET_PARAM);
+        if (pos != -1) {
+          int start = pos + CHARSET_PARAM.length();
+          int end = type.indexOf(';', start);
+          String charset = (end == -1 ? type.substring(start) : type.substring(start, end)).trim();
+          if (charset.length() >= 2 && charset.charAt(0) == '"' && charset.charAt(charset.length() - 1) == '"') {
+            charset = charset.substring(1, charset.length() - 1);
+          }
+          if (!charset.isEmpty()) {
+            characterEncoding = charset;
+          }
+        }
+      }
+    }
+
+    @Override
+    public String getContentType() {
+      return contentType;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+      characterEncoding = charset;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+      return (characterEncoding != null) ? characterEncoding : StandardCharsets.UTF_8.name();
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+      // Ignored
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+      // Ignored
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+      // Ignored
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+      return false;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+      // Ignored
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+      // Ignored
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+      // Ignored
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+      // Ignored
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+      // Ignored
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+      // Ignored
+    }
+
+    @Override
+    public String getHeader(String name) {
+      return null;
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public String encodeURL(String url) {
+      return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+      return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeUrl(String url) {
+      return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeRedirectUrl(String url) {
+      return url;
+    }
+  }
+}
@@ -1,6 +1,6 @@
 /*
  * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
- * Copyright (C) 2015, 2016, 2017, 2021, 2022, 2024  AO Industries, Inc.
+ * Copyright (C) 2015, 2016, 2017, 2021, 2022, 2024, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -38,12 +38,12 @@ public final class Headers {
   /**
    * A client may include this header to indicate it is in export mode.
    */
-  private static final String EXPORTING_HEADER = "X-com-semanticcms-core-renderer-html-exporting";
+  static final String EXPORTING_HEADER = "X-com-semanticcms-core-renderer-html-exporting";
 
   /**
    * The value to pass in the header.
    */
-  private static final String EXPORTING_HEADER_VALUE = "true";
+  static final String EXPORTING_HEADER_VALUE = "true";
 
   /**
    * Checks if the request is for an export.
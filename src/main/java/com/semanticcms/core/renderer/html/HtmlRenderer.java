@@ -1,6 +1,6 @@
 /*
  * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
- * Copyright (C) 2014, 2015, 2016, 2017, 2018, 2019, 2020, 2021, 2022, 2023, 2024  AO Industries, Inc.
+ * Copyright (C) 2014, 2015, 2016, 2017, 2018, 2019, 2020, 2021, 2022, 2023, 2024, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -23,20 +23,41 @@
 
 package com.semanticcms.core.renderer.html;
 
+import static com.aoapps.encoding.TextInXhtmlAttributeEncoder.encodeTextInXhtmlAttribute;
+
+import com.aoapps.encoding.Doctype;
 import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.servlet.DoctypeEE;
+import com.aoapps.encoding.servlet.SerializationEE;
+import com.aoapps.lang.Strings;
+import com.aoapps.net.URIEncoder;
 import com.aoapps.servlet.attribute.ScopeEE;
+import com.aoapps.servlet.http.HttpServletUtil;
+import com.aoapps.web.resources.registry.Group;
+import com.aoapps.web.resources.registry.Style;
 import com.aoapps.web.resources.servlet.RegistryEE;
+import com.semanticcms.core.controller.CapturePage;
 import com.semanticcms.core.controller.SemanticCMS;
+import com.semanticcms.core.model.BookRef;
 import com.semanticcms.core.model.Link;
 import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
 import com.semanticcms.core.pages.CaptureLevel;
 import com.semanticcms.core.renderer.Renderer;
 import com.semanticcms.core.renderer.servlet.DefaultServletPageRenderer;
 import com.semanticcms.core.renderer.servlet.ServletPageRenderer;
 import java.io.IOException;
 import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -44,9 +65,16 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
@@ -55,6 +83,7 @@ import javax.servlet.annotation.WebListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.jsp.SkipPageException;
+import org.joda.time.ReadableInstant;
 
 /**
  * The HTML Renderer application context.
@@ -68,57 +97,1141 @@ public class HtmlRenderer implements Renderer {
 
   // <editor-fold defaultstate="collapsed" desc="Singleton Instance (per application)">
 
-  /**
-   * Registers the {@link HtmlRenderer} with {@link SemanticCMS} and exposes the {@link HtmlRenderer} as an
-   * application-scope variable "{@link #APPLICATION_ATTRIBUTE_NAME}".
-   */
-  @WebListener("Registers the HtmlRenderer with SemanticCMS and exposes the HtmlRenderer as an application-scope variable \"" + APPLICATION_ATTRIBUTE_NAME + "\".")
-  public static class Initializer implements ServletContextListener {
+  /**
+   * Registers the {@link HtmlRenderer} with {@link SemanticCMS} and exposes the {@link HtmlRenderer} as an
+   * application-scope variable "{@link #APPLICATION_ATTRIBUTE_NAME}".
+   */
+  @WebListener("Registers the HtmlRenderer with SemanticCMS and exposes the HtmlRenderer as an application-scope variable \"" + APPLICATION_ATTRIBUTE_NAME + "\".")
+  public static class Initializer implements ServletContextListener {
+
+    private HtmlRenderer instance;
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+      ServletContext servletContext = event.getServletContext();
+      instance = getInstance(servletContext);
+      SemanticCMS semanticCms = SemanticCMS.getInstance(servletContext);
+      semanticCms.addRenderer("", instance);
+      semanticCms.addRenderer(EXPORT_SUFFIX, new ExportRenderer(instance));
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+      if (instance != null) {
+        instance.destroy();
+        instance = null;
+      }
+      APPLICATION_ATTRIBUTE.context(event.getServletContext()).remove();
+    }
+  }
+
+  /**
+   * The suffix of the export version of pages.
+   *
+   * @see  ExportRenderer
+   */
+  public static final String EXPORT_SUFFIX = ".html";
+
+  /**
+   * The export version of the renderer, registered at {@link #EXPORT_SUFFIX}.  Renders the same as the
+   * {@link HtmlRenderer} while {@linkplain Headers#isExporting(javax.servlet.http.HttpServletRequest) exporting},
+   * otherwise redirects to the page without the suffix.
+   */
+  private static final class ExportRenderer implements Renderer {
+
+    private final HtmlRenderer htmlRenderer;
+
+    private ExportRenderer(HtmlRenderer htmlRenderer) {
+      this.htmlRenderer = htmlRenderer;
+    }
+
+    @Override
+    public CaptureLevel getCaptureLevel() {
+      return htmlRenderer.getCaptureLevel();
+    }
+
+    @Override
+    public ServletPageRenderer newPageRenderer(Page page, Map<String, ? extends Object> attributes) {
+      return htmlRenderer.newPageRenderer(page, attributes, true);
+    }
+  }
+
+  private static final String LOCATION_HEADER = "Location";
+
+  /**
+   * Redirects to the page without the {@link #EXPORT_SUFFIX}, preserving any query string.
+   */
+  private static void redirectFromExport(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page
+  ) throws IOException {
+    PageRef pageRef = page.getPageRef();
+    StringBuilder location = new StringBuilder();
+    location.append(request.getContextPath());
+    URIEncoder.encodeURI(pageRef.getBookRef().getPrefix() + pageRef.getPath(), location);
+    String queryString = request.getQueryString();
+    if (queryString != null) {
+      location.append('?').append(queryString);
+    }
+    response.resetBuffer();
+    response.setStatus(HttpServletResponse.SC_MOVED_PERMANENTLY);
+    response.setHeader(LOCATION_HEADER, response.encodeRedirectURL(location.toString()));
+  }
+
+  private static final String APPLICATION_ATTRIBUTE_NAME = "htmlRenderer";
+
+  public static final ScopeEE.Application.Attribute<HtmlRenderer> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(APPLICATION_ATTRIBUTE_NAME);
+
+  /**
+   * The context-param that names a subclass of {@link HtmlRenderer} to use as the instance, such as to
+   * override {@link #capturePage(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.PageRef, com.semanticcms.core.pages.CaptureLevel)}.
+   * The subclass must be public, not abstract, and have a public constructor that takes the {@link ServletContext}.
+   * Defaults to {@link HtmlRenderer} itself when not set.
+   *
+   * <p>An invalid class fails initialization of the application with an {@link IllegalArgumentException} that names
+   * the context-param, the class, and the reason.</p>
+   */
+  public static final String IMPLEMENTATION_INIT_PARAM = HtmlRenderer.class.getName() + ".implementation";
+
+  private static HtmlRenderer newInstance(ServletContext servletContext) {
+    String className = Strings.trimNullIfEmpty(servletContext.getInitParameter(IMPLEMENTATION_INIT_PARAM));
+    if (className == null) {
+      return new HtmlRenderer(servletContext);
+    }
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    if (classLoader == null) {
+      classLoader = HtmlRenderer.class.getClassLoader();
+    }
+    Class<?> clazz;
+    try {
+      clazz = Class.forName(className, true, classLoader);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalArgumentException(IMPLEMENTATION_INIT_PARAM + " class not found: " + className, e);
+    }
+    if (!HtmlRenderer.class.isAssignableFrom(clazz)) {
+      throw new IllegalArgumentException(IMPLEMENTATION_INIT_PARAM + " is not a subclass of "
+          + HtmlRenderer.class.getName() + ": " + className);
+    }
+    if (Modifier.isAbstract(clazz.getModifiers())) {
+      throw new IllegalArgumentException(IMPLEMENTATION_INIT_PARAM + " is abstract: " + className);
+    }
+    Constructor<? extends HtmlRenderer> constructor;
+    try {
+      constructor = clazz.asSubclass(HtmlRenderer.class).getConstructor(ServletContext.class);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException(IMPLEMENTATION_INIT_PARAM + " has no public constructor taking "
+          + ServletContext.class.getName() + ": " + className, e);
+    }
+    try {
+      return constructor.newInstance(servletContext);
+    } catch (InvocationTargetException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalArgumentException(IMPLEMENTATION_INIT_PARAM + " unable to create: " + className, cause);
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new IllegalArgumentException(IMPLEMENTATION_INIT_PARAM + " unable to create, must be a public class: "
+          + className, e);
+    }
+  }
+
+  /**
+   * Gets the {@link HtmlRenderer} instance, creating it if necessary.
+   *
+   * @see  #IMPLEMENTATION_INIT_PARAM
+   */
+  public static HtmlRenderer getInstance(ServletContext servletContext) {
+    return APPLICATION_ATTRIBUTE.context(servletContext).computeIfAbsent(name -> newInstance(servletContext));
+  }
+
+  private final ServletContext servletContext;
+
+  protected HtmlRenderer(ServletContext servletContext) {
+    this.servletContext = servletContext;
+    this.renderCache = new RenderCache(getRenderCacheMaxBytes(servletContext));
+    this.pageIndexCache = new PageIndexCache(
+        getPageIndexCacheMaxEntries(servletContext),
+        TimeUnit.SECONDS.toNanos(getPageIndexCacheMaxAge(servletContext))
+    );
+    this.pageIndexThreads = getPageIndexThreads(servletContext);
+    this.preload = Boolean.parseBoolean(Strings.trimNullIfEmpty(servletContext.getInitParameter(PRELOAD_INIT_PARAM)));
+    this.earlyHints = this.preload
+        && Boolean.parseBoolean(Strings.trimNullIfEmpty(servletContext.getInitParameter(EARLY_HINTS_INIT_PARAM)));
+    this.renderStatsName = registerRenderStats(servletContext, renderStats);
+    this.traceLog = getTraceLog(servletContext);
+  }
+
+  /**
+   * Called when the context is shutting down.
+   */
+  protected void destroy() {
+    unregisterRenderStats();
+    if (traceLog != null) {
+      traceLog.close();
+    }
+    clearRenderCache();
+    clearPageIndexCache();
+    shutdownPageIndexExecutor();
+  }
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Render Cache">
+
+  /**
+   * The context-param that sets the maximum total bytes of the render cache.
+   * A value of zero disables the render cache.
+   *
+   * @see  #DEFAULT_RENDER_CACHE_MAX_BYTES
+   */
+  public static final String RENDER_CACHE_MAX_BYTES_INIT_PARAM = HtmlRenderer.class.getName() + ".renderCache.maxBytes";
+
+  /**
+   * The default maximum total bytes of the render cache.
+   */
+  public static final long DEFAULT_RENDER_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+
+  private static long getRenderCacheMaxBytes(ServletContext servletContext) {
+    String value = Strings.trimNullIfEmpty(servletContext.getInitParameter(RENDER_CACHE_MAX_BYTES_INIT_PARAM));
+    if (value == null) {
+      return DEFAULT_RENDER_CACHE_MAX_BYTES;
+    }
+    long maxBytes = Long.parseLong(value);
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException(RENDER_CACHE_MAX_BYTES_INIT_PARAM + " may not be negative: " + maxBytes);
+    }
+    return maxBytes;
+  }
+
+  private final RenderCache renderCache;
+
+  /**
+   * Gets the render cache, for tests.
+   */
+  RenderCache getRenderCache() {
+    return renderCache;
+  }
+
+  /**
+   * Removes all pages from the render cache.  Entries are otherwise invalidated automatically when the
+   * {@linkplain #getRegistryVersion() registry version} or the
+   * {@linkplain #getLastModified(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.renderer.html.View, com.semanticcms.core.model.Page) last modified time}
+   * changes, but this may be used when content changes without a change in last modified.  Only pages with a known
+   * last modified time are cached.
+   */
+  public void clearRenderCache() {
+    renderCache.clear();
+  }
+
+  /**
+   * Gets the key for the render cache or {@code null} when the request may not use the render cache.
+   * Only anonymous {@code GET} and {@code HEAD} requests, without any parameters other than {@link #VIEW_PARAM},
+   * for a {@linkplain View#isCacheable() cacheable view} and {@linkplain Theme#isCacheable() cacheable theme}
+   * may be cached.
+   *
+   * <p>The last modified time is the only thing that detects a change to the page, so pages are only cached when the
+   * view is a {@linkplain View#isLastModifiedValidator() last modified validator} and the last modified time is
+   * known.  Otherwise, an edited page would be sent from the cache until it is cleared.</p>
+   *
+   * @param  lastModified  the last modified time of the page or {@code -1} when unknown
+   */
+  private RenderCache.Key getRenderCacheKey(HttpServletRequest request, View view, Theme theme, Page page, long lastModified) {
+    if (!renderCache.isEnabled() || !view.isCacheable() || !theme.isCacheable() || lastModified == -1) {
+      return null;
+    }
+    String method = request.getMethod();
+    if (!"GET".equals(method) && !"HEAD".equals(method)) {
+      return null;
+    }
+    for (String paramName : request.getParameterMap().keySet()) {
+      if (!VIEW_PARAM.equals(paramName)) {
+        return null;
+      }
+    }
+    if (
+        request.getRemoteUser() != null
+            || request.getRequestedSessionId() != null
+            || request.getSession(false) != null
+    ) {
+      return null;
+    }
+    return new RenderCache.Key(
+        request.getScheme(),
+        request.getServerName(),
+        request.getServerPort(),
+        page.getPageRef(),
+        view,
+        theme,
+        SerializationEE.get(servletContext, request),
+        DoctypeEE.get(servletContext, request),
+        Headers.isExporting(request)
+    );
+  }
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Page Index">
+
+  /**
+   * The context-param that sets the number of pages captured concurrently when building a {@link PageIndex}.
+   * A value of one captures the pages one after another on the request thread.
+   *
+   * <p>When greater than one, the DAG is discovered level by level, with the pages of each level captured on a
+   * bounded pool of threads shared by all requests.  Each capture has its own isolated request that does not see
+   * the attributes of the request, so request-scoped state such as the capture cache is not shared between threads.
+   * The container request is still used by the pool threads while the request thread waits, which the Servlet
+   * specification does not allow.  Only enable this when it has been verified against the container and
+   * application in use.</p>
+   *
+   * @see  #DEFAULT_PAGE_INDEX_THREADS
+   */
+  public static final String PAGE_INDEX_THREADS_INIT_PARAM = HtmlRenderer.class.getName() + ".pageIndex.threads";
+
+  /**
+   * The default number of pages captured concurrently when building a {@link PageIndex}.
+   */
+  public static final int DEFAULT_PAGE_INDEX_THREADS = 1;
+
+  private static int getPageIndexThreads(ServletContext servletContext) {
+    String value = Strings.trimNullIfEmpty(servletContext.getInitParameter(PAGE_INDEX_THREADS_INIT_PARAM));
+    if (value == null) {
+      return DEFAULT_PAGE_INDEX_THREADS;
+    }
+    int threads = Integer.parseInt(value);
+    if (threads < 1) {
+      throw new IllegalArgumentException(PAGE_INDEX_THREADS_INIT_PARAM + " may not be less than one: " + threads);
+    }
+    return threads;
+  }
+
+  private final int pageIndexThreads;
+
+  /**
+   * Gets the number of pages captured concurrently when building a {@link PageIndex}.
+   *
+   * @see  #PAGE_INDEX_THREADS_INIT_PARAM
+   */
+  public int getPageIndexThreads() {
+    return pageIndexThreads;
+  }
+
+  private final Object pageIndexExecutorLock = new Object();
+
+  private ExecutorService pageIndexExecutor;
+
+  private boolean destroyed;
+
+  /**
+   * Gets the pool of {@linkplain #getPageIndexThreads() page index threads}, creating it when first used.
+   * The pool is shared by all requests and shut down on {@link #destroy()}.
+   */
+  ExecutorService getPageIndexExecutor() {
+    synchronized (pageIndexExecutorLock) {
+      if (destroyed) {
+        throw new IllegalStateException("Destroyed");
+      }
+      if (pageIndexExecutor == null) {
+        AtomicInteger threadNum = new AtomicInteger();
+        pageIndexExecutor = Executors.newFixedThreadPool(
+            pageIndexThreads,
+            r -> {
+              Thread thread = new Thread(r, PageIndex.class.getName() + "-" + threadNum.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+        );
+      }
+      return pageIndexExecutor;
+    }
+  }
+
+  private void shutdownPageIndexExecutor() {
+    ExecutorService executor;
+    synchronized (pageIndexExecutorLock) {
+      destroyed = true;
+      executor = pageIndexExecutor;
+      pageIndexExecutor = null;
+    }
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * The context-param that sets the maximum number of {@link PageIndex} retained for combined views.
+   * A value of zero disables the page index cache.
+   *
+   * @see  #DEFAULT_PAGE_INDEX_CACHE_MAX_ENTRIES
+   */
+  public static final String PAGE_INDEX_CACHE_MAX_ENTRIES_INIT_PARAM = HtmlRenderer.class.getName() + ".pageIndexCache.maxEntries";
+
+  /**
+   * The default maximum number of {@link PageIndex} retained.
+   */
+  public static final int DEFAULT_PAGE_INDEX_CACHE_MAX_ENTRIES = 16;
+
+  private static int getPageIndexCacheMaxEntries(ServletContext servletContext) {
+    String value = Strings.trimNullIfEmpty(servletContext.getInitParameter(PAGE_INDEX_CACHE_MAX_ENTRIES_INIT_PARAM));
+    if (value == null) {
+      return DEFAULT_PAGE_INDEX_CACHE_MAX_ENTRIES;
+    }
+    int maxEntries = Integer.parseInt(value);
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException(PAGE_INDEX_CACHE_MAX_ENTRIES_INIT_PARAM + " may not be negative: " + maxEntries);
+    }
+    return maxEntries;
+  }
+
+  /**
+   * The context-param that sets the number of seconds a {@link PageIndex} is retained after being built, bounding the
+   * time changes below the root page go undetected by the default
+   * {@linkplain #getPageIndexVersion(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page) content version}.
+   * A value of zero retains page indexes until their version changes or the cache is
+   * {@linkplain #clearPageIndexCache() cleared}, such as when pages only change on redeploy.
+   *
+   * @see  #DEFAULT_PAGE_INDEX_CACHE_MAX_AGE
+   */
+  public static final String PAGE_INDEX_CACHE_MAX_AGE_INIT_PARAM = HtmlRenderer.class.getName() + ".pageIndexCache.maxAge";
+
+  /**
+   * The default number of seconds a {@link PageIndex} is retained after being built.
+   */
+  public static final int DEFAULT_PAGE_INDEX_CACHE_MAX_AGE = 10;
+
+  private static int getPageIndexCacheMaxAge(ServletContext servletContext) {
+    String value = Strings.trimNullIfEmpty(servletContext.getInitParameter(PAGE_INDEX_CACHE_MAX_AGE_INIT_PARAM));
+    if (value == null) {
+      return DEFAULT_PAGE_INDEX_CACHE_MAX_AGE;
+    }
+    int maxAge = Integer.parseInt(value);
+    if (maxAge < 0) {
+      throw new IllegalArgumentException(PAGE_INDEX_CACHE_MAX_AGE_INIT_PARAM + " may not be negative: " + maxAge);
+    }
+    return maxAge;
+  }
+
+  private final PageIndexCache pageIndexCache;
+
+  PageIndexCache getPageIndexCache() {
+    return pageIndexCache;
+  }
+
+  /**
+   * Removes all page indexes from the page index cache.  Entries are otherwise invalidated automatically when the
+   * {@linkplain #getPageIndexVersion(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page) content version}
+   * changes, but this should be used when changes are not reflected in the version.
+   */
+  public void clearPageIndexCache() {
+    pageIndexCache.clear();
+  }
+
+  /**
+   * Gets the version of the content of the pages in the DAG of the given root page, used to validate cached
+   * {@link PageIndex}.  This is called on every request for a page index, so must be cheap.  Applications that can
+   * detect changes anywhere in their books cheaply, such as by a book-wide last modified time, should include them
+   * here, and may then disable the {@linkplain #PAGE_INDEX_CACHE_MAX_AGE_INIT_PARAM maximum age}.
+   *
+   * <p><b>Implementation Note:</b><br>
+   * returns a stamp of the root page, including its modified date, title, parents, children, and links, by default.
+   * Other changes below the root are detected once the page index reaches its
+   * {@linkplain #PAGE_INDEX_CACHE_MAX_AGE_INIT_PARAM maximum age}, or immediately by
+   * {@link #clearPageIndexCache()}.</p>
+   *
+   * @param  rootPage  the root page, captured at {@link CaptureLevel#META} level
+   */
+  protected long getPageIndexVersion(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page rootPage
+  ) throws ServletException, IOException {
+    return Exporter.getStamp(rootPage);
+  }
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Preload">
+
+  /**
+   * The context-param that enables {@code Link: rel=preload} response headers for stylesheets and scripts.
+   * Disabled by default.
+   *
+   * <p>Stylesheets are those in the {@linkplain RegistryEE.Request request-scope web resources}, as configured by
+   * {@link Theme#configureResources(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.renderer.html.View, com.semanticcms.core.model.Page, com.aoapps.web.resources.registry.Registry)}
+   * and
+   * {@link View#configureResources(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.renderer.html.Theme, com.semanticcms.core.model.Page, com.aoapps.web.resources.registry.Registry)}.
+   * When a page is sent from the render cache, the preload headers stored with it are sent again.</p>
+   *
+   * @see  #getScripts()
+   * @see  View#getScripts()
+   */
+  public static final String PRELOAD_INIT_PARAM = HtmlRenderer.class.getName() + ".preload";
+
+  /**
+   * The context-param that enables sending a {@code 103 Early Hints} informational response with the preload headers,
+   * before the theme is rendered.  Only used when {@link #PRELOAD_INIT_PARAM preload} is enabled.
+   * Disabled by default.
+   *
+   * <p>Early hints are sent with {@link HttpServletResponse#sendError(int)}, which is how containers expose them
+   * outside of the Servlet API.  <b>Only enable this on containers that support early hints</b>, since other
+   * containers will send an error response instead.  A container that supports them sends the headers set so far
+   * as an informational response and leaves the response uncommitted, so rendering continues with the final
+   * status.  When the response is committed by the call, the page is not rendered.</p>
+   *
+   * <p>Early hints are not sent for pages from the render cache, since the page itself is sent immediately.</p>
+   */
+  public static final String EARLY_HINTS_INIT_PARAM = HtmlRenderer.class.getName() + ".earlyHints";
+
+  private static final String LINK_HEADER = "Link";
+
+  private static final int SC_EARLY_HINTS = 103;
+
+  private final boolean preload;
+
+  private final boolean earlyHints;
+
+  /**
+   * Adds {@code Link: rel=preload} headers for the stylesheets of the request-scope web resources and for the global
+   * and per-view scripts, then sends the {@code 103 Early Hints} when enabled.
+   */
+  private void sendPreload(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Snapshot snapshot,
+      View view
+  ) throws ServletException, IOException {
+    // Preload is meaningless to exports, and early hints would replace the status
+    if (preload && !Headers.isExporting(request)) {
+      // Stylesheets first, since they block rendering
+      Set<String> hrefs = new LinkedHashSet<>();
+      for (Group group : RegistryEE.Request.get(servletContext, request).getGroups().values()) {
+        for (Style style : group.styles.getSorted()) {
+          hrefs.add(style.getUri());
+        }
+      }
+      for (String href : hrefs) {
+        response.addHeader(
+            LINK_HEADER,
+            '<' + HttpServletUtil.buildURL(request, response, href, null, false, false) + ">; rel=preload; as=style"
+        );
+      }
+      Map<String, String> viewScripts = view.getScripts();
+      Set<String> srcs = new LinkedHashSet<>((snapshot.getScripts().size() + viewScripts.size()) * 4 / 3 + 1);
+      srcs.addAll(snapshot.getScripts().values());
+      srcs.addAll(viewScripts.values());
+      if (!hrefs.isEmpty() || !srcs.isEmpty()) {
+        for (String src : srcs) {
+          response.addHeader(
+              LINK_HEADER,
+              '<' + HttpServletUtil.buildURL(request, response, src, null, false, false) + ">; rel=preload; as=script"
+          );
+        }
+        if (earlyHints) {
+          response.sendError(SC_EARLY_HINTS);
+        }
+      }
+    }
+  }
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Render Statistics">
+
+  private static final String RENDER_STATS_DOMAIN = HtmlRenderer.class.getPackage().getName();
+
+  private final RenderStats renderStats = new RenderStats();
+
+  /**
+   * The name registered with the platform {@link MBeanServer} or {@code null} when not registered.
+   */
+  private final ObjectName renderStatsName;
+
+  /**
+   * Gets the per-view and per-theme render statistics.
+   */
+  public RenderStatsMXBean getRenderStats() {
+    return renderStats;
+  }
+
+  /**
+   * Registers the render statistics with the platform {@link MBeanServer}.
+   * Failure to register is logged and does not prevent rendering.
+   *
+   * @return  the registered name or {@code null} when not registered
+   */
+  private static ObjectName registerRenderStats(ServletContext servletContext, RenderStats renderStats) {
+    String contextPath = servletContext.getContextPath();
+    try {
+      ObjectName name = new ObjectName(
+          RENDER_STATS_DOMAIN + ":type=" + HtmlRenderer.class.getSimpleName()
+              + ",context=" + ObjectName.quote(contextPath.isEmpty() ? "/" : contextPath)
+      );
+      ManagementFactory.getPlatformMBeanServer().registerMBean(
+          new StandardMBean(renderStats, RenderStatsMXBean.class, true),
+          name
+      );
+      return name;
+    } catch (JMException | SecurityException e) {
+      logger.log(Level.WARNING, "Unable to register render statistics: contextPath = " + contextPath, e);
+      return null;
+    }
+  }
+
+  private void unregisterRenderStats() {
+    if (renderStatsName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(renderStatsName);
+      } catch (JMException | SecurityException e) {
+        logger.log(Level.WARNING, "Unable to unregister render statistics: " + renderStatsName, e);
+      }
+    }
+  }
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Render Trace">
+
+  /**
+   * The context-param that enables {@linkplain RenderTrace render tracing} by setting the file traces are appended to.
+   * Tracing is disabled when not set.
+   */
+  public static final String TRACE_FILE_INIT_PARAM = HtmlRenderer.class.getName() + ".trace.file";
+
+  /**
+   * The context-param that sets the minimum milliseconds a render must take to be written to the trace file.
+   * Defaults to zero, which writes all traces.
+   */
+  public static final String TRACE_THRESHOLD_MILLIS_INIT_PARAM = HtmlRenderer.class.getName() + ".trace.thresholdMillis";
+
+  private static RenderTrace.Log getTraceLog(ServletContext servletContext) {
+    String file = Strings.trimNullIfEmpty(servletContext.getInitParameter(TRACE_FILE_INIT_PARAM));
+    if (file == null) {
+      return null;
+    }
+    String threshold = Strings.trimNullIfEmpty(servletContext.getInitParameter(TRACE_THRESHOLD_MILLIS_INIT_PARAM));
+    long thresholdMillis = (threshold == null) ? 0 : Long.parseLong(threshold);
+    if (thresholdMillis < 0) {
+      throw new IllegalArgumentException(TRACE_THRESHOLD_MILLIS_INIT_PARAM + " may not be negative: " + thresholdMillis);
+    }
+    return new RenderTrace.Log(Paths.get(file), TimeUnit.MILLISECONDS.toNanos(thresholdMillis));
+  }
+
+  /**
+   * The trace log or {@code null} when tracing disabled.
+   */
+  private final RenderTrace.Log traceLog;
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Page Capture">
+
+  private static final String[] CAPTURE_PAGE_SPAN_NAMES;
+
+  static {
+    CaptureLevel[] levels = CaptureLevel.values();
+    CAPTURE_PAGE_SPAN_NAMES = new String[levels.length];
+    for (CaptureLevel level : levels) {
+      CAPTURE_PAGE_SPAN_NAMES[level.ordinal()] = "capturePage(" + level + ')';
+    }
+  }
+
+  /**
+   * Captures a page for {@link NavigationTreeRenderer}, {@link ElementFilterTree}, and {@link LinkRenderer}, and to
+   * re-capture a page at the level required by its view and theme.
+   *
+   * <p><b>Implementation Note:</b><br>
+   * calls {@link CapturePage#capturePage(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.PageRef, com.semanticcms.core.pages.CaptureLevel)} by default</p>
+   *
+   * @see  #IMPLEMENTATION_INIT_PARAM
+   */
+  protected Page capturePage(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      PageRef pageRef,
+      CaptureLevel level
+  ) throws ServletException, IOException {
+    return CapturePage.capturePage(servletContext, request, response, pageRef, level);
+  }
+
+  /**
+   * Checks if a book is accessible, for {@link NavigationTreeRenderer} and {@link ElementFilterTree} to only include
+   * pages in accessible books.
+   *
+   * <p><b>Implementation Note:</b><br>
+   * checks {@link SemanticCMS#getBook(com.semanticcms.core.model.BookRef)} by default</p>
+   *
+   * @see  #IMPLEMENTATION_INIT_PARAM
+   */
+  protected boolean isAccessible(BookRef bookRef) {
+    return SemanticCMS.getInstance(servletContext).getBook(bookRef).isAccessible();
+  }
+
+  /**
+   * {@linkplain #capturePage(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.PageRef, com.semanticcms.core.pages.CaptureLevel) Captures a page}
+   * within a {@linkplain RenderTrace trace span}.
+   */
+  final Page capture(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      PageRef pageRef,
+      CaptureLevel level
+  ) throws ServletException, IOException {
+    try (RenderTrace.Span span = RenderTrace.begin(request, CAPTURE_PAGE_SPAN_NAMES[level.ordinal()], pageRef)) {
+      return capturePage(servletContext, request, response, pageRef, level);
+    }
+  }
+
+  /**
+   * {@linkplain #capture(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.PageRef, com.semanticcms.core.pages.CaptureLevel) Captures a page}
+   * on an {@linkplain IsolatedRequest isolated request} that does not inherit any attributes.  Request-scoped state,
+   * including the capture cache, starts empty and is discarded after the capture, so the page is not retained by the
+   * request.  The trace span is still recorded in the given request.
+   */
+  final Page captureIsolated(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      PageRef pageRef,
+      CaptureLevel level
+  ) throws ServletException, IOException {
+    try (RenderTrace.Span span = RenderTrace.begin(request, CAPTURE_PAGE_SPAN_NAMES[level.ordinal()], pageRef)) {
+      return capturePage(servletContext, new IsolatedRequest(request, false), response, pageRef, level);
+    }
+  }
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Registry Snapshot">
+  /**
+   * An immutable snapshot of the views, components, themes, scripts, and head includes registered at one moment in time.
+   * Each registration publishes a new snapshot with an incremented {@linkplain #getVersion() version}, so requests
+   * read a consistent registry through a single volatile read, without locking or allocating wrappers.
+   * Caches may use the version to detect registration changes.
+   */
+  public static final class Snapshot {
+
+    private static final Snapshot EMPTY = new Snapshot(
+        0,
+        Collections.emptyMap(),
+        new View[0],
+        Collections.emptySortedSet(),
+        Collections.emptyMap(),
+        Collections.emptyMap(),
+        Collections.emptySet(),
+        null,
+        Collections.emptyList(),
+        new ThemeSelector[0],
+        ComponentIndex.EMPTY
+    );
+
+    private final long version;
+    private final Map<String, View> viewsByName;
+    final View[] viewsArray;
+    private final SortedSet<View> views;
+    private final Map<String, Theme> themes;
+    private final Map<String, String> scripts;
+    private final Set<String> headIncludes;
+    private final Theme selectedTheme;
+    private final List<ThemeSelector> themeSelectors;
+    final ThemeSelector[] themeSelectorsArray;
+    private final ComponentIndex componentIndex;
+
+    private Snapshot(
+        long version,
+        Map<String, View> viewsByName,
+        View[] viewsArray,
+        SortedSet<View> views,
+        Map<String, Theme> themes,
+        Map<String, String> scripts,
+        Set<String> headIncludes,
+        Theme selectedTheme,
+        List<ThemeSelector> themeSelectors,
+        ThemeSelector[] themeSelectorsArray,
+        ComponentIndex componentIndex
+    ) {
+      this.version = version;
+      this.viewsByName = viewsByName;
+      this.viewsArray = viewsArray;
+      this.views = views;
+      this.themes = themes;
+      this.scripts = scripts;
+      this.headIncludes = headIncludes;
+      this.selectedTheme = selectedTheme;
+      this.themeSelectors = themeSelectors;
+      this.themeSelectorsArray = themeSelectorsArray;
+      this.componentIndex = componentIndex;
+    }
+
+    /**
+     * Gets the version of this snapshot, which is incremented on each registration.
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * Gets the views in order added.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    public Map<String, View> getViewsByName() {
+      return viewsByName;
+    }
+
+    /**
+     * Gets the views, ordered by view group then display.
+     *
+     * @see  View#compareTo(com.semanticcms.core.renderer.html.View)
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    public SortedSet<View> getViews() {
+      return views;
+    }
+
+    /**
+     * Gets the themes, in the order added.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    public Map<String, Theme> getThemes() {
+      return themes;
+    }
+
+    /**
+     * Gets all components, ordered by class name.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    public List<Component> getComponents() {
+      return componentIndex.components;
+    }
+
+    /**
+     * Gets the components that apply to the given view and position.  The returned array must not be modified.
+     *
+     * @param  view  The current view or {@code null} for only components that apply to all views
+     */
+    Component[] getComponents(View view, ComponentPosition position, boolean reverse) {
+      return componentIndex.get(view, position, reverse);
+    }
+
+    /**
+     * Gets the theme used when no {@linkplain #getThemeSelectors() theme selector} chooses a theme.
+     * This is the first non-default theme registered, or the {@linkplain Theme#isDefault() default theme}
+     * when no other theme is registered.
+     *
+     * @return  The theme or {@code null} when no themes are registered
+     */
+    public Theme getSelectedTheme() {
+      return selectedTheme;
+    }
+
+    /**
+     * Gets the theme selectors, in the order added.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    public List<ThemeSelector> getThemeSelectors() {
+      return themeSelectors;
+    }
+
+    /**
+     * Gets the scripts, in the order added.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    public Map<String, String> getScripts() {
+      return scripts;
+    }
+
+    /**
+     * Gets the head includes, in the order added.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    public Set<String> getHeadIncludes() {
+      return headIncludes;
+    }
+
+    private Snapshot withComponent(Component component) {
+      List<Component> components = componentIndex.components;
+      // Order the components by classname, just to have a consistent output
+      // independent of the order components happened to be registered.
+      String className = component.getClass().getName();
+      int index = components.size();
+      while (index > 0 && components.get(index - 1).getClass().getName().compareTo(className) > 0) {
+        index--;
+      }
+      List<Component> newComponents = new ArrayList<>(components.size() + 1);
+      newComponents.addAll(components);
+      newComponents.add(index, component);
+      return new Snapshot(
+          version + 1,
+          viewsByName,
+          viewsArray,
+          views,
+          themes,
+          scripts,
+          headIncludes,
+          selectedTheme,
+          themeSelectors,
+          themeSelectorsArray,
+          new ComponentIndex(Collections.unmodifiableList(newComponents))
+      );
+    }
+
+    private Snapshot withView(View view) throws IllegalStateException {
+      String name = view.getName();
+      if (viewsByName.containsKey(name)) {
+        throw new IllegalStateException("View already registered: " + name);
+      }
+      Map<String, View> newViewsByName = new LinkedHashMap<>(viewsByName);
+      if (newViewsByName.put(name, view) != null) {
+        throw new AssertionError();
+      }
+      SortedSet<View> newViews = new TreeSet<>(views);
+      if (!newViews.add(view)) {
+        throw new AssertionError();
+      }
+      return new Snapshot(
+          version + 1,
+          Collections.unmodifiableMap(newViewsByName),
+          newViewsByName.values().toArray(new View[newViewsByName.size()]),
+          Collections.unmodifiableSortedSet(newViews),
+          themes,
+          scripts,
+          headIncludes,
+          selectedTheme,
+          themeSelectors,
+          themeSelectorsArray,
+          componentIndex
+      );
+    }
+
+    private Snapshot withTheme(Theme theme) throws IllegalStateException {
+      String name = theme.getName();
+      if (themes.containsKey(name)) {
+        throw new IllegalStateException("Theme already registered: " + name);
+      }
+      Map<String, Theme> newThemes = new LinkedHashMap<>(themes);
+      if (newThemes.put(name, theme) != null) {
+        throw new AssertionError();
+      }
+      return new Snapshot(
+          version + 1,
+          viewsByName,
+          viewsArray,
+          views,
+          Collections.unmodifiableMap(newThemes),
+          scripts,
+          headIncludes,
+          // The first non-default theme is selected, otherwise the default theme
+          (selectedTheme == null || selectedTheme.isDefault()) ? theme : selectedTheme,
+          themeSelectors,
+          themeSelectorsArray,
+          componentIndex
+      );
+    }
+
+    private Snapshot withThemeSelector(ThemeSelector themeSelector) {
+      List<ThemeSelector> newThemeSelectors = new ArrayList<>(themeSelectors.size() + 1);
+      newThemeSelectors.addAll(themeSelectors);
+      newThemeSelectors.add(themeSelector);
+      return new Snapshot(
+          version + 1,
+          viewsByName,
+          viewsArray,
+          views,
+          themes,
+          scripts,
+          headIncludes,
+          selectedTheme,
+          Collections.unmodifiableList(newThemeSelectors),
+          newThemeSelectors.toArray(new ThemeSelector[newThemeSelectors.size()]),
+          componentIndex
+      );
+    }
+
+    /**
+     * @return  this same snapshot when the script is already registered with the same src
+     */
+    private Snapshot withScript(String name, String src) throws IllegalStateException {
+      String existingSrc = scripts.get(name);
+      if (existingSrc != null) {
+        if (!src.equals(existingSrc)) {
+          throw new IllegalStateException(
+              "Script already registered but with a different src:"
+                  + " name=" + name
+                  + " src=" + src
+                  + " existingSrc=" + existingSrc
+          );
+        }
+        return this;
+      } else {
+        // Make sure src not provided by another script
+        if (scripts.values().contains(src)) {
+          throw new IllegalArgumentException("Non-unique global script src: " + src);
+        }
+        Map<String, String> newScripts = new LinkedHashMap<>(scripts);
+        if (newScripts.put(name, src) != null) {
+          throw new AssertionError();
+        }
+        return new Snapshot(
+            version + 1,
+            viewsByName,
+            viewsArray,
+            views,
+            themes,
+            Collections.unmodifiableMap(newScripts),
+            headIncludes,
+            selectedTheme,
+            themeSelectors,
+            themeSelectorsArray,
+            componentIndex
+        );
+      }
+    }
+
+    private Snapshot withHeadInclude(String headInclude) throws IllegalStateException {
+      if (headIncludes.contains(headInclude)) {
+        throw new IllegalStateException("headInclude already registered: " + headInclude);
+      }
+      Set<String> newHeadIncludes = new LinkedHashSet<>(headIncludes);
+      if (!newHeadIncludes.add(headInclude)) {
+        throw new AssertionError();
+      }
+      return new Snapshot(
+          version + 1,
+          viewsByName,
+          viewsArray,
+          views,
+          themes,
+          scripts,
+          Collections.unmodifiableSet(newHeadIncludes),
+          selectedTheme,
+          themeSelectors,
+          themeSelectorsArray,
+          componentIndex
+      );
+    }
+  }
+
+  /**
+   * Components indexed by view and position, forward and reverse, so only the applicable components are called.
+   */
+  private static final class ComponentIndex {
+
+    private static final ComponentIndex EMPTY = new ComponentIndex(Collections.emptyList());
+
+    private static final ComponentPosition[] positions = ComponentPosition.values();
+
+    private static final Component[] EMPTY_COMPONENTS = new Component[0];
+
+    private final List<Component> components;
+
+    /**
+     * The components that apply to all views, by {@code position.ordinal() * 2 + (reverse ? 1 : 0)}.
+     */
+    private final Component[][] allViews;
 
-    private HtmlRenderer instance;
+    /**
+     * The components by view name, only for views named by at least one component.
+     */
+    private final Map<String, Component[][]> byViewName;
+
+    private ComponentIndex(List<Component> components) {
+      this.components = components;
+      // Read the declarations once
+      int size = components.size();
+      List<Set<ComponentPosition>> componentPositions = new ArrayList<>(size);
+      List<Set<String>> componentViewNames = new ArrayList<>(size);
+      Set<String> viewNames = new HashSet<>();
+      for (Component component : components) {
+        componentPositions.add(component.getPositions());
+        Set<String> names = component.getViewNames();
+        componentViewNames.add(names);
+        if (names != null) {
+          viewNames.addAll(names);
+        }
+      }
+      allViews = index(components, componentPositions, componentViewNames, null);
+      Map<String, Component[][]> newByViewName = new HashMap<>(viewNames.size() * 4 / 3 + 1);
+      for (String viewName : viewNames) {
+        newByViewName.put(viewName, index(components, componentPositions, componentViewNames, viewName));
+      }
+      byViewName = newByViewName;
+    }
 
-    @Override
-    public void contextInitialized(ServletContextEvent event) {
-      ServletContext servletContext = event.getServletContext();
-      instance = getInstance(servletContext);
-      SemanticCMS.getInstance(servletContext).addRenderer("", instance);
-      // TODO: Register an export version at *.html, which redirects to not .html when not in export mode
+    /**
+     * @param  viewName  The view name or {@code null} for only components that apply to all views
+     */
+    private static Component[][] index(
+        List<Component> components,
+        List<Set<ComponentPosition>> componentPositions,
+        List<Set<String>> componentViewNames,
+        String viewName
+    ) {
+      Component[][] index = new Component[positions.length * 2][];
+      int size = components.size();
+      for (ComponentPosition position : positions) {
+        List<Component> applicable = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          Set<String> names = componentViewNames.get(i);
+          if (
+              componentPositions.get(i).contains(position)
+                  && (names == null || (viewName != null && names.contains(viewName)))
+          ) {
+            applicable.add(components.get(i));
+          }
+        }
+        int ordinal = position.ordinal();
+        if (applicable.isEmpty()) {
+          index[ordinal * 2] = EMPTY_COMPONENTS;
+          index[ordinal * 2 + 1] = EMPTY_COMPONENTS;
+        } else {
+          index[ordinal * 2] = applicable.toArray(new Component[applicable.size()]);
+          Collections.reverse(applicable);
+          index[ordinal * 2 + 1] = applicable.toArray(new Component[applicable.size()]);
+        }
+      }
+      return index;
     }
 
-    @Override
-    public void contextDestroyed(ServletContextEvent event) {
-      if (instance != null) {
-        instance.destroy();
-        instance = null;
+    private Component[] get(View view, ComponentPosition position, boolean reverse) {
+      Component[][] index = (view == null) ? null : byViewName.get(view.getName());
+      if (index == null) {
+        index = allViews;
       }
-      APPLICATION_ATTRIBUTE.context(event.getServletContext()).remove();
+      return index[position.ordinal() * 2 + (reverse ? 1 : 0)];
     }
   }
 
-  private static final String APPLICATION_ATTRIBUTE_NAME = "htmlRenderer";
-
-  public static final ScopeEE.Application.Attribute<HtmlRenderer> APPLICATION_ATTRIBUTE =
-      ScopeEE.APPLICATION.attribute(APPLICATION_ATTRIBUTE_NAME);
+  private static class RegistrationLock {
+    // Empty lock class to help heap profile
+  }
 
   /**
-   * Gets the {@link HtmlRenderer} instance, creating it if necessary.
+   * Serializes registrations, which are rare and normally only performed on app start-up.
+   * Reads do not lock.
    */
-  public static HtmlRenderer getInstance(ServletContext servletContext) {
-    // TODO: Support custom implementations via context-param?
-    return APPLICATION_ATTRIBUTE.context(servletContext).computeIfAbsent(name -> new HtmlRenderer(servletContext));
-  }
+  private final RegistrationLock registrationLock = new RegistrationLock();
 
-  private final ServletContext servletContext;
+  /**
+   * The current snapshot, replaced on each registration while holding {@link #registrationLock}.
+   */
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
 
-  protected HtmlRenderer(ServletContext servletContext) {
-    this.servletContext = servletContext;
+  /**
+   * Gets the current snapshot of the registered views, components, themes, scripts, and head includes.
+   * Callers that read more than one registry should read them all from a single snapshot
+   * for a consistent view.
+   */
+  public Snapshot getSnapshot() {
+    return snapshot;
   }
 
   /**
-   * Called when the context is shutting down.
+   * Gets the version of the current {@linkplain #getSnapshot() snapshot}.
+   *
+   * @see  Snapshot#getVersion()
    */
-  protected void destroy() {
-    // Do nothing
+  public long getRegistryVersion() {
+    return snapshot.getVersion();
   }
   // </editor-fold>
 
@@ -130,17 +1243,6 @@ public class HtmlRenderer implements Renderer {
    */
   public static final String VIEW_PARAM = "view";
 
-  private static class ViewsLock {
-    // Empty lock class to help heap profile
-  }
-
-  private final ViewsLock viewsLock = new ViewsLock();
-
-  /**
-   * The views by name in order added.
-   */
-  private final Map<String, View> viewsByName = new LinkedHashMap<>();
-
   private static final Set<View.Group> viewGroups = Collections.unmodifiableSet(EnumSet.allOf(View.Group.class));
 
   /**
@@ -152,23 +1254,21 @@ public class HtmlRenderer implements Renderer {
 
   /**
    * Gets the views in order added.
+   *
+   * @see  Snapshot#getViewsByName()
    */
   public Map<String, View> getViewsByName() {
-    return Collections.unmodifiableMap(viewsByName);
+    return snapshot.getViewsByName();
   }
 
-  /**
-   * The views in order.
-   */
-  private final SortedSet<View> views = new TreeSet<>();
-
   /**
    * Gets the views, ordered by view group then display.
    *
    * @see  View#compareTo(com.semanticcms.core.renderer.html.View)
+   * @see  Snapshot#getViews()
    */
   public SortedSet<View> getViews() {
-    return Collections.unmodifiableSortedSet(views);
+    return snapshot.getViews();
   }
 
   /**
@@ -177,46 +1277,31 @@ public class HtmlRenderer implements Renderer {
    * @throws  IllegalStateException  if a view is already registered with the name.
    */
   public void addView(View view) throws IllegalStateException {
-    String name = view.getName();
-    synchronized (viewsLock) {
-      if (viewsByName.containsKey(name)) {
-        throw new IllegalStateException("View already registered: " + name);
-      }
-      if (viewsByName.put(name, view) != null) {
-        throw new AssertionError();
-      }
-      if (!views.add(view)) {
-        throw new AssertionError();
-      }
+    synchronized (registrationLock) {
+      snapshot = snapshot.withView(view);
     }
   }
   // </editor-fold>
 
   // <editor-fold defaultstate="collapsed" desc="Components">
-  /**
-   * The components that are currently registered.
-   */
-  private final List<Component> components = new CopyOnWriteArrayList<>();
-
   /**
    * Gets all components in an undefined, but consistent (within a single run) ordering.
+   *
+   * @see  Snapshot#getComponents()
    */
   public List<Component> getComponents() {
-    return Collections.unmodifiableList(components);
+    return snapshot.getComponents();
   }
 
   /**
    * Registers a new component.
+   *
+   * @see  Component#getPositions()
+   * @see  Component#getViewNames()
    */
   public void addComponent(Component component) {
-    synchronized (components) {
-      components.add(component);
-      // Order the components by classname, just to have a consistent output
-      // independent of the order components happened to be registered.
-      Collections.sort(
-          components,
-          (o1, o2) -> o1.getClass().getName().compareTo(o2.getClass().getName())
-      );
+    synchronized (registrationLock) {
+      snapshot = snapshot.withComponent(component);
     }
   }
   // </editor-fold>
@@ -227,19 +1312,13 @@ public class HtmlRenderer implements Renderer {
    */
   public static final String DEFAULT_THEME_NAME = "base";
 
-  /**
-   * The themes in order added.
-   */
-  private final Map<String, Theme> themes = new LinkedHashMap<>();
-
   /**
    * Gets the themes, in the order added.
+   *
+   * @see  Snapshot#getThemes()
    */
   public Map<String, Theme> getThemes() {
-    synchronized (themes) {
-      // Not returning a copy since themes are normally only registered on app start-up.
-      return Collections.unmodifiableMap(themes);
-    }
+    return snapshot.getThemes();
   }
 
   /**
@@ -248,34 +1327,43 @@ public class HtmlRenderer implements Renderer {
    * @throws  IllegalStateException  if a theme is already registered with the name.
    */
   public void addTheme(Theme theme) throws IllegalStateException {
-    String name = theme.getName();
-    synchronized (themes) {
-      if (themes.containsKey(name)) {
-        throw new IllegalStateException("Theme already registered: " + name);
-      }
-      if (themes.put(name, theme) != null) {
-        throw new AssertionError();
-      }
+    synchronized (registrationLock) {
+      snapshot = snapshot.withTheme(theme);
     }
   }
-  // </editor-fold>
 
-  // <editor-fold defaultstate="collapsed" desc="Scripts">
   /**
-   * The scripts in the order added.
+   * Gets the theme selectors, in the order added.
+   *
+   * @see  Snapshot#getThemeSelectors()
    */
-  // TODO: RegistryEE
-  private final Map<String, String> scripts = new LinkedHashMap<>();
+  public List<ThemeSelector> getThemeSelectors() {
+    return snapshot.getThemeSelectors();
+  }
+
+  /**
+   * Registers a new theme selector.  Theme selectors are consulted in the order added, before using the
+   * {@linkplain Snapshot#getSelectedTheme() selected theme}.
+   *
+   * @see  ThemeSelector.RequestAttribute
+   * @see  ThemeSelector.CookieValue
+   */
+  public void addThemeSelector(ThemeSelector themeSelector) {
+    synchronized (registrationLock) {
+      snapshot = snapshot.withThemeSelector(themeSelector);
+    }
+  }
+  // </editor-fold>
 
+  // <editor-fold defaultstate="collapsed" desc="Scripts">
   /**
    * Gets the scripts, in the order added.
+   *
+   * @see  Snapshot#getScripts()
    */
   // TODO: RegistryEE
   public Map<String, String> getScripts() {
-    synchronized (scripts) {
-      // Not returning a copy since scripts are normally only registered on app start-up.
-      return Collections.unmodifiableMap(scripts);
-    }
+    return snapshot.getScripts();
   }
 
   /**
@@ -290,44 +1378,71 @@ public class HtmlRenderer implements Renderer {
    */
   // TODO: RegistryEE
   public void addScript(String name, String src) throws IllegalStateException {
-    synchronized (scripts) {
-      String existingSrc = scripts.get(name);
-      if (existingSrc != null) {
-        if (!src.equals(existingSrc)) {
-          throw new IllegalStateException(
-              "Script already registered but with a different src:"
-                  + " name=" + name
-                  + " src=" + src
-                  + " existingSrc=" + existingSrc
-          );
-        }
-      } else {
-        // Make sure src not provided by another script
-        if (scripts.values().contains(src)) {
-          throw new IllegalArgumentException("Non-unique global script src: " + src);
-        }
-        if (scripts.put(name, src) != null) {
-          throw new AssertionError();
-        }
-      }
+    synchronized (registrationLock) {
+      snapshot = snapshot.withScript(name, src);
+    }
+  }
+
+  /**
+   * The opening of a script tag up to the value of its {@code src} attribute, by {@link Doctype#ordinal()}.
+   * Encoded once, since it only depends on the doctype.
+   */
+  private static final char[][] SCRIPT_SRC_OPEN;
+
+  /**
+   * The closing of a script tag after the value of its {@code src} attribute, by {@link Doctype#ordinal()}.
+   * Encoded once, since it only depends on the doctype.
+   */
+  private static final char[][] SCRIPT_SRC_CLOSE;
+
+  static {
+    Doctype[] doctypes = Doctype.values();
+    SCRIPT_SRC_OPEN = new char[doctypes.length][];
+    SCRIPT_SRC_CLOSE = new char[doctypes.length][];
+    for (Doctype doctype : doctypes) {
+      SCRIPT_SRC_OPEN[doctype.ordinal()] = ((doctype == Doctype.HTML5)
+          ? "<script src=\""
+          : "<script type=\"text/javascript\" src=\"").toCharArray();
+      SCRIPT_SRC_CLOSE[doctype.ordinal()] = "\"></script>".toCharArray();
     }
   }
-  // </editor-fold>
 
-  // <editor-fold defaultstate="collapsed" desc="Head Includes">
   /**
-   * The head includes in the order added.
+   * Writes script tags for all {@linkplain #getScripts() scripts}, in the order added, directly to the given writer.
+   * Themes may use this instead of building each script element through the document on every request.
+   *
+   * <p>The markup around each {@code src} is encoded once per doctype, which is all that does not depend on the
+   * response.  Each {@code src} is built with
+   * {@link HttpServletUtil#buildURL(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.lang.String, com.aoapps.net.URIParameters, boolean, boolean)},
+   * including {@link HttpServletResponse#encodeURL(java.lang.String)}, the same as the preload headers.</p>
+   *
+   * @param  doctype  the doctype of the document, as from
+   *                  {@link com.aoapps.encoding.servlet.DoctypeEE#get(javax.servlet.ServletContext, javax.servlet.ServletRequest)}
    */
-  private final Set<String> headIncludes = new LinkedHashSet<>();
+  public void writeScripts(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Doctype doctype,
+      Writer out
+  ) throws IOException {
+    char[] open = SCRIPT_SRC_OPEN[doctype.ordinal()];
+    char[] close = SCRIPT_SRC_CLOSE[doctype.ordinal()];
+    for (String src : snapshot.getScripts().values()) {
+      out.write(open);
+      encodeTextInXhtmlAttribute(HttpServletUtil.buildURL(request, response, src, null, false, false), out);
+      out.write(close);
+    }
+  }
+  // </editor-fold>
 
+  // <editor-fold defaultstate="collapsed" desc="Head Includes">
   /**
    * Gets the head includes, in the order added.
+   *
+   * @see  Snapshot#getHeadIncludes()
    */
   public Set<String> getHeadIncludes() {
-    synchronized (headIncludes) {
-      // Not returning a copy since head includes are normally only registered on app start-up.
-      return Collections.unmodifiableSet(headIncludes);
-    }
+    return snapshot.getHeadIncludes();
   }
 
   /**
@@ -336,10 +1451,47 @@ public class HtmlRenderer implements Renderer {
    * @throws  IllegalStateException  if the link is already registered.
    */
   public void addHeadInclude(String headInclude) throws IllegalStateException {
-    synchronized (headIncludes) {
-      if (!headIncludes.add(headInclude)) {
-        throw new IllegalStateException("headInclude already registered: " + headInclude);
+    synchronized (registrationLock) {
+      snapshot = snapshot.withHeadInclude(headInclude);
+    }
+  }
+
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Resolver Chains">
+
+  /**
+   * The resolvers registered for a class and each of its super classes, up to and including a base class, ordered from
+   * the most specific class to the base class.  Each chain is resolved once per class then memoized in the class value.
+   *
+   * <p>Instances are immutable: a new instance is published whenever a resolver is registered, which discards all
+   * memoized chains.</p>
+   *
+   * @param  <R>  the type of resolver
+   */
+  private static final class ResolverChains<R> extends ClassValue<Object[]> {
+
+    private final Class<?> baseType;
+    private final Map<Class<?>, R> resolverByType;
+
+    private ResolverChains(Class<?> baseType, Map<? extends Class<?>, ? extends R> resolverByType) {
+      this.baseType = baseType;
+      this.resolverByType = Collections.unmodifiableMap(resolverByType);
+    }
+
+    @Override
+    protected Object[] computeValue(Class<?> type) {
+      List<R> chain = new ArrayList<>();
+      for (Class<?> t = type; t != null; t = t.getSuperclass()) {
+        R resolver = resolverByType.get(t);
+        if (resolver != null) {
+          chain.add(resolver);
+        }
+        if (t == baseType) {
+          break;
+        }
       }
+      return chain.toArray();
     }
   }
 
@@ -366,10 +1518,19 @@ public class HtmlRenderer implements Renderer {
    */
   private final Map<Class<? extends com.semanticcms.core.model.Element>, LinkCssClassResolver<?>> linkCssClassResolverByElementType = new LinkedHashMap<>();
 
+  /**
+   * The resolved chains of link CSS class resolvers, replaced whenever a resolver is added.
+   */
+  private volatile ResolverChains<LinkCssClassResolver<?>> linkCssClassResolverChains =
+      new ResolverChains<>(com.semanticcms.core.model.Element.class, Collections.emptyMap());
+
   /**
    * Gets the CSS class to use in links to the given element.
    * Also looks for match on parent classes up to and including Element itself.
    *
+   * <p>This is lock-free: the resolvers for each element type are resolved once and no lock is held while the
+   * resolvers are invoked.</p>
+   *
    * @return  The CSS class or {@code null} when element is null or no class registered for it or any super class.
    *
    * @see  LinkCssClassResolver#getCssLinkClass(com.semanticcms.core.model.Element)
@@ -378,23 +1539,15 @@ public class HtmlRenderer implements Renderer {
     if (element == null) {
       return null;
     }
-    Class<? extends com.semanticcms.core.model.Element> elementType = element.getClass();
-    synchronized (linkCssClassResolverByElementType) {
-      while (true) {
-        @SuppressWarnings("unchecked")
-        LinkCssClassResolver<? super E> linkCssClassResolver = (LinkCssClassResolver<? super E>) linkCssClassResolverByElementType.get(elementType);
-        if (linkCssClassResolver != null) {
-          String linkCssClass = linkCssClassResolver.getCssLinkClass(element);
-          if (linkCssClass != null) {
-            return linkCssClass;
-          }
-        }
-        if (elementType == com.semanticcms.core.model.Element.class) {
-          return null;
-        }
-        elementType = elementType.getSuperclass().asSubclass(com.semanticcms.core.model.Element.class);
+    for (Object resolver : linkCssClassResolverChains.get(element.getClass())) {
+      @SuppressWarnings("unchecked")
+      LinkCssClassResolver<? super E> linkCssClassResolver = (LinkCssClassResolver<? super E>) resolver;
+      String linkCssClass = linkCssClassResolver.getCssLinkClass(element);
+      if (linkCssClass != null) {
+        return linkCssClass;
       }
     }
+    return null;
   }
 
   /**
@@ -413,6 +1566,10 @@ public class HtmlRenderer implements Renderer {
       if (linkCssClassResolverByElementType.put(elementType, cssLinkClassResolver) != null) {
         throw new AssertionError();
       }
+      linkCssClassResolverChains = new ResolverChains<>(
+          com.semanticcms.core.model.Element.class,
+          new HashMap<>(linkCssClassResolverByElementType)
+      );
     }
   }
 
@@ -452,10 +1609,19 @@ public class HtmlRenderer implements Renderer {
    */
   private final Map<Class<? extends com.semanticcms.core.model.Node>, ListItemCssClassResolver<?>> listItemCssClassResolverByNodeType = new LinkedHashMap<>();
 
+  /**
+   * The resolved chains of list item CSS class resolvers, replaced whenever a resolver is added.
+   */
+  private volatile ResolverChains<ListItemCssClassResolver<?>> listItemCssClassResolverChains =
+      new ResolverChains<>(com.semanticcms.core.model.Node.class, Collections.emptyMap());
+
   /**
    * Gets the CSS class to use in list items to the given node.
    * Also looks for match on parent classes up to and including Node itself.
    *
+   * <p>This is lock-free: the resolvers for each node type are resolved once and no lock is held while the
+   * resolvers are invoked.</p>
+   *
    * @return  The CSS class or {@code null} when node is null or no class registered for it or any super class.
    *
    * @see  ListItemCssClassResolver#getListItemCssClass(com.semanticcms.core.model.Node)
@@ -464,23 +1630,15 @@ public class HtmlRenderer implements Renderer {
     if (node == null) {
       return null;
     }
-    Class<? extends com.semanticcms.core.model.Node> nodeType = node.getClass();
-    synchronized (listItemCssClassResolverByNodeType) {
-      while (true) {
-        @SuppressWarnings("unchecked")
-        ListItemCssClassResolver<? super N> listItemCssClassResolver = (ListItemCssClassResolver<? super N>) listItemCssClassResolverByNodeType.get(nodeType);
-        if (listItemCssClassResolver != null) {
-          String listItemCssClass = listItemCssClassResolver.getListItemCssClass(node);
-          if (listItemCssClass != null) {
-            return listItemCssClass;
-          }
-        }
-        if (nodeType == com.semanticcms.core.model.Node.class) {
-          return null;
-        }
-        nodeType = nodeType.getSuperclass().asSubclass(com.semanticcms.core.model.Node.class);
+    for (Object resolver : listItemCssClassResolverChains.get(node.getClass())) {
+      @SuppressWarnings("unchecked")
+      ListItemCssClassResolver<? super N> listItemCssClassResolver = (ListItemCssClassResolver<? super N>) resolver;
+      String listItemCssClass = listItemCssClassResolver.getListItemCssClass(node);
+      if (listItemCssClass != null) {
+        return listItemCssClass;
       }
     }
+    return null;
   }
 
   /**
@@ -499,6 +1657,10 @@ public class HtmlRenderer implements Renderer {
       if (listItemCssClassResolverByNodeType.put(nodeType, listItemCssClassResolver) != null) {
         throw new AssertionError();
       }
+      listItemCssClassResolverChains = new ResolverChains<>(
+          com.semanticcms.core.model.Node.class,
+          new HashMap<>(listItemCssClassResolverByNodeType)
+      );
     }
   }
 
@@ -519,19 +1681,109 @@ public class HtmlRenderer implements Renderer {
 
   // <editor-fold defaultstate="collapsed" desc="Renderer">
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Pages are captured at the lowest level, {@link CaptureLevel#PAGE}, since the view and theme are not known
+   * until the request is rendered.  Pages are re-captured at a higher level only when
+   * {@linkplain #getCaptureLevel(com.semanticcms.core.renderer.html.View, com.semanticcms.core.renderer.html.Theme) required by the view or theme}.</p>
+   */
   @Override
   public CaptureLevel getCaptureLevel() {
-    // TODO: Capture based on a per-view setting
     return CaptureLevel.PAGE;
   }
 
+  /**
+   * Gets the lowest level that satisfies both the view and the theme.
+   *
+   * @see  View#getCaptureLevel()
+   * @see  Theme#getCaptureLevel()
+   */
+  public static CaptureLevel getCaptureLevel(View view, Theme theme) {
+    CaptureLevel viewLevel = view.getCaptureLevel();
+    CaptureLevel themeLevel = theme.getCaptureLevel();
+    return viewLevel.compareTo(themeLevel) >= 0 ? viewLevel : themeLevel;
+  }
+
+  private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+
+  private static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+
+  private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+  private static final String VARY_HEADER = "Vary";
+
+  /**
+   * Gets the last modified time of a page rendered in the given view, for use as a validator in conditional requests.
+   *
+   * @return  The last modified time, truncated to the one-second resolution of HTTP dates, or {@code -1} when unknown
+   *          or the view is not a {@linkplain View#isLastModifiedValidator() last modified validator}.
+   *
+   * @see  View#isLastModifiedValidator()
+   * @see  View#getLastModified(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)
+   */
+  public long getLastModified(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      View view,
+      Page page
+  ) throws ServletException, IOException {
+    if (!view.isLastModifiedValidator()) {
+      return -1;
+    }
+    ReadableInstant lastModified = view.getLastModified(servletContext, request, response, page);
+    if (lastModified == null) {
+      return -1;
+    }
+    long millis = lastModified.getMillis();
+    if (millis < 0) {
+      return -1;
+    }
+    return millis - (millis % 1000);
+  }
+
+  /**
+   * Checks if a conditional request may be answered with {@link HttpServletResponse#SC_NOT_MODIFIED}.
+   * Only {@code GET} and {@code HEAD} requests are considered.  Since no entity tags are generated,
+   * any {@code If-None-Match} header, which takes precedence over {@code If-Modified-Since}, is never
+   * matched.
+   *
+   * @param  lastModified  the last modified time, already truncated to seconds
+   */
+  private static boolean isNotModified(HttpServletRequest request, long lastModified) {
+    String method = request.getMethod();
+    if (!"GET".equals(method) && !"HEAD".equals(method)) {
+      return false;
+    }
+    if (request.getHeader(IF_NONE_MATCH_HEADER) != null) {
+      return false;
+    }
+    long ifModifiedSince;
+    try {
+      ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE_HEADER);
+    } catch (IllegalArgumentException e) {
+      // Unparseable date is ignored
+      return false;
+    }
+    return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+  }
+
   @Override
   public ServletPageRenderer newPageRenderer(Page page, Map<String, ? extends Object> attributes) {
+    return newPageRenderer(page, attributes, false);
+  }
+
+  /**
+   * @param  exportOnly  When {@code true}, only renders while {@linkplain Headers#isExporting(javax.servlet.http.HttpServletRequest) exporting},
+   *                     otherwise redirects to the page without the {@link #EXPORT_SUFFIX}.
+   */
+  private ServletPageRenderer newPageRenderer(Page page, Map<String, ? extends Object> attributes, boolean exportOnly) {
     return new DefaultServletPageRenderer(page, attributes) {
 
       @Override
       public long getLastModified() throws IOException {
-        // TODO: Per-view last modified
+        // Per-view last modified requires the request to resolve the view, see conditional request handling in doRenderer
         return 0;
       }
 
@@ -543,7 +1795,7 @@ public class HtmlRenderer implements Renderer {
 
       @Override
       public long getLength() throws IOException {
-        // TODO: Per-view length
+        // Per-view length requires the request to resolve the view, see View.isBuffered()
         return -1;
       }
 
@@ -554,53 +1806,120 @@ public class HtmlRenderer implements Renderer {
           HttpServletResponse response,
           Writer out // TODO: Pass "out" to theme.doTheme()?
       ) throws IOException, ServletException, SkipPageException {
+        if (traceLog == null || RenderTrace.isTracing(request)) {
+          doRendererImpl(page, request, response);
+        } else {
+          RenderTrace trace = new RenderTrace(request, page.getPageRef());
+          RenderTrace.setTrace(request, trace);
+          try {
+            doRendererImpl(page, request, response);
+          } finally {
+            RenderTrace.setTrace(request, null);
+            trace.end();
+            traceLog.write(trace, response.getStatus());
+          }
+        }
+      }
+
+      private void doRendererImpl(
+          Page page,
+          HttpServletRequest request,
+          HttpServletResponse response
+      ) throws IOException, ServletException, SkipPageException {
+        if (exportOnly && !Headers.isExporting(request)) {
+          redirectFromExport(request, response, page);
+          return;
+        }
+
+        // Read all registries from a single snapshot
+        final Snapshot snapshot = getSnapshot();
+
         // Resolve the view
-        HtmlRenderer htmlRenderer = HtmlRenderer.getInstance(servletContext);
         View view;
-          {
-            String viewName = request.getParameter(VIEW_PARAM);
-            Map<String, View> viewsMap = htmlRenderer.getViewsByName();
-            if (viewName == null) {
-              view = null;
-            } else {
-              if (Link.DEFAULT_VIEW_NAME.equals(viewName)) {
-                throw new ServletException(VIEW_PARAM + " paramater may not be sent for default view: " + viewName);
-              }
-              view = viewsMap.get(viewName);
+        try (RenderTrace.Span span = RenderTrace.begin(request, "resolveView")) {
+          String viewName = request.getParameter(VIEW_PARAM);
+          Map<String, View> viewsMap = snapshot.getViewsByName();
+          if (viewName == null) {
+            view = null;
+          } else {
+            if (Link.DEFAULT_VIEW_NAME.equals(viewName)) {
+              throw new ServletException(VIEW_PARAM + " paramater may not be sent for default view: " + viewName);
             }
+            view = viewsMap.get(viewName);
+          }
+          if (view == null) {
+            // Find default
+            view = viewsMap.get(Link.DEFAULT_VIEW_NAME);
             if (view == null) {
-              // Find default
-              view = viewsMap.get(Link.DEFAULT_VIEW_NAME);
-              if (view == null) {
-                throw new ServletException("Default view not found: " + Link.DEFAULT_VIEW_NAME);
-              }
+              throw new ServletException("Default view not found: " + Link.DEFAULT_VIEW_NAME);
             }
           }
+          span.setDetail(view.getName());
+        }
 
-        // Find the theme
+        // Find the theme, varying by the headers of every selector consulted
         Theme theme = null;
-          {
-            // Currently just picks the first non-default theme registered, the uses default
-            Theme defaultTheme = null;
-            for (Theme t : htmlRenderer.getThemes().values()) {
-              if (t.isDefault()) {
-                assert defaultTheme == null : "More than one default theme registered";
-                defaultTheme = t;
-              } else {
-                // Use first non-default
-                theme = t;
-                break;
+        boolean varies = false;
+        try (RenderTrace.Span span = RenderTrace.begin(request, "selectTheme")) {
+          for (ThemeSelector themeSelector : snapshot.themeSelectorsArray) {
+            String vary = themeSelector.getVary();
+            if (vary != null) {
+              varies = true;
+              if (!response.getHeaders(VARY_HEADER).contains(vary)) {
+                response.addHeader(VARY_HEADER, vary);
               }
             }
+            theme = themeSelector.selectTheme(request, snapshot.getThemes());
+            if (theme != null) {
+              break;
+            }
+          }
+          if (theme == null) {
+            theme = snapshot.getSelectedTheme();
             if (theme == null) {
-              // Use default
-              if (defaultTheme == null) {
-                throw new ServletException("No themes registered");
-              }
-              theme = defaultTheme;
+              throw new ServletException("No themes registered");
             }
-            assert theme != null;
           }
+          span.setDetail(theme.getName());
+        }
+
+        RenderStats.Recorder viewStats = renderStats.getView(view);
+        RenderStats.Recorder themeStats = renderStats.getTheme(theme);
+        viewStats.request();
+        themeStats.request();
+
+        // Re-capture at a higher level only when required by the view or theme
+        CaptureLevel captureLevel = HtmlRenderer.getCaptureLevel(view, theme);
+        if (captureLevel.compareTo(HtmlRenderer.this.getCaptureLevel()) > 0) {
+          try (RenderTrace.Span span = RenderTrace.begin(request, CAPTURE_PAGE_SPAN_NAMES[captureLevel.ordinal()], page.getPageRef())) {
+            page = HtmlRenderer.this.capturePage(servletContext, request, response, page.getPageRef(), captureLevel);
+          }
+        }
+
+        // Answer conditional requests before any theme work, unless the theme depends on the request headers
+        long lastModified = HtmlRenderer.this.getLastModified(servletContext, request, response, view, page);
+        if (lastModified != -1) {
+          response.setDateHeader(LAST_MODIFIED_HEADER, lastModified);
+          if (!varies && isNotModified(request, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+          }
+        }
+
+        // Send from the render cache when possible
+        RenderCache.Key cacheKey = getRenderCacheKey(request, view, theme, page, lastModified);
+        if (cacheKey != null) {
+          RenderCache.Entry cached = renderCache.get(cacheKey, snapshot.getVersion(), lastModified);
+          if (cached != null) {
+            response.resetBuffer();
+            cached.send(request, response);
+            return;
+          }
+        }
+
+        // HEAD requests not answered from the render cache, above, are rendered the same as GET, buffered so the
+        // headers match, including Content-Length, with the body then discarded
+        boolean isHead = "HEAD".equals(request.getMethod());
 
         // Clear the output buffer
         response.resetBuffer();
@@ -611,45 +1930,131 @@ public class HtmlRenderer implements Renderer {
         // TODO:     We don't want the model picking-up any servlet-specific things, since we may want other non-servlet environments, too, like Play Framework
         // TODO: ServletUtil.setContentType(response, serialization.getContentType(), Html.ENCODING.name());
 
+        // The headers set from here on, including the preload headers, are stored in the render cache
+        Map<String, List<String>> headersBefore = (cacheKey == null) ? null : RenderCache.getHeaders(response);
+
         Theme oldTheme = Theme.getTheme(request);
         try {
           Theme.setTheme(request, theme);
 
           // Configure the theme resources
-          theme.configureResources(
-              servletContext,
-              request,
-              response,
-              view,
-              page,
-              RegistryEE.Request.get(servletContext, request)
-          );
+          long startNanos = System.nanoTime();
+          try (RenderTrace.Span span = RenderTrace.begin(request, "theme.configureResources", theme.getName())) {
+            theme.configureResources(
+                servletContext,
+                request,
+                response,
+                view,
+                page,
+                RegistryEE.Request.get(servletContext, request)
+            );
+          }
+          long endNanos = System.nanoTime();
+          themeStats.configureResources.record(endNanos - startNanos);
 
           // Configure the view resources
-          view.configureResources(
-              servletContext,
-              request,
-              response,
-              theme,
-              page,
-              RegistryEE.Request.get(servletContext, request)
-          );
+          startNanos = endNanos;
+          try (RenderTrace.Span span = RenderTrace.begin(request, "view.configureResources", view.getName())) {
+            view.configureResources(
+                servletContext,
+                request,
+                response,
+                theme,
+                page,
+                RegistryEE.Request.get(servletContext, request)
+            );
+          }
+          viewStats.configureResources.record(System.nanoTime() - startNanos);
 
           // TODO: Configure the page resources here or within view?
 
+          // Let the client start fetching scripts while rendering
+          if (!response.isCommitted()) {
+            sendPreload(request, response, snapshot, view);
+          }
+
           // Forward to theme
           if (!response.isCommitted()) {
-            theme.doTheme(servletContext, request, response, view, page);
+            if (cacheKey != null || view.isBuffered() || isHead) {
+              // Render into a buffer to send the exact length, support byte ranges, and populate the render cache
+              BufferedResponse bufferedResponse = new BufferedResponse(response);
+              try {
+                doTheme(theme, request, bufferedResponse, view, page, viewStats, themeStats);
+                if (!response.isCommitted()) {
+                  byte[] buffer = bufferedResponse.getBuffer();
+                  int length = bufferedResponse.getLength();
+                  RenderCache.Entry entry;
+                  if (cacheKey != null) {
+                    entry = renderCache.newEntry(
+                        response,
+                        headersBefore,
+                        snapshot.getVersion(),
+                        lastModified,
+                        buffer,
+                        length
+                    );
+                    if (entry != null) {
+                      renderCache.put(cacheKey, entry);
+                    }
+                  } else {
+                    entry = null;
+                  }
+                  if (entry != null) {
+                    // Send the same, possibly compressed, variant as later cache hits
+                    entry.sendBody(request, response);
+                  } else {
+                    BufferedResponse.send(request, response, buffer, length, lastModified);
+                  }
+                }
+              } finally {
+                bufferedResponse.release();
+              }
+            } else {
+              // Streaming directly, the head may be flushed early
+              boolean oldEarlyFlush = Theme.isEarlyFlush(request);
+              try {
+                Theme.setEarlyFlush(request, view.isEarlyFlushAllowed());
+                doTheme(theme, request, response, view, page, viewStats, themeStats);
+              } finally {
+                Theme.setEarlyFlush(request, oldEarlyFlush);
+              }
+            }
           } else {
             logger.log(Level.FINE, "Not forwarding to theme due to response already committed: request.servletPath = {0}, theme = {1}",
                 new Object[] {request.getServletPath(), theme});
             throw new SkipPageException("Response already committed, unable to forward to theme");
           }
+        } catch (ServletException | IOException | RuntimeException e) {
+          viewStats.error();
+          themeStats.error();
+          throw e;
         } finally {
           Theme.setTheme(request, oldTheme);
         }
       }
 
+      /**
+       * Forwards to the theme, recording the time taken.
+       */
+      private void doTheme(
+          Theme theme,
+          HttpServletRequest request,
+          HttpServletResponse response,
+          View view,
+          Page page,
+          RenderStats.Recorder viewStats,
+          RenderStats.Recorder themeStats
+      ) throws ServletException, IOException, SkipPageException {
+        long startNanos = System.nanoTime();
+        try (RenderTrace.Span span = RenderTrace.begin(request, "doTheme", theme.getName())) {
+          theme.doTheme(servletContext, request, response, view, page);
+        } finally {
+          long nanos = System.nanoTime() - startNanos;
+          viewStats.doTheme.record(nanos);
+          themeStats.doTheme.record(nanos);
+        }
+      }
+
       @Override
       public void close() {
         // Do nothing
@@ -0,0 +1,109 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * A request with its own attributes, layered over those of the wrapped request.  Attributes set or removed do not
+ * affect the wrapped request, so a single request may be used by multiple threads at once, such as while capturing
+ * pages concurrently, provided the wrapped request is not modified meanwhile.
+ *
+ * <p>When not inheriting attributes, none of the attributes of the wrapped request are visible.  Request-scoped
+ * state kept in attributes, such as the capture cache, then starts empty instead of being shared between threads.</p>
+ *
+ * <p>Each instance is used by one thread at a time.</p>
+ */
+class IsolatedRequest extends HttpServletRequestWrapper {
+
+  private final boolean inheritAttributes;
+  private final Map<String, Object> attributes = new HashMap<>();
+  private final Set<String> removedAttributes = new HashSet<>();
+
+  /**
+   * @param  inheritAttributes  when {@code true}, attributes of the wrapped request are visible until set or removed
+   */
+  IsolatedRequest(HttpServletRequest request, boolean inheritAttributes) {
+    super(request);
+    this.inheritAttributes = inheritAttributes;
+  }
+
+  /**
+   * Inherits the attributes of the wrapped request.
+   */
+  IsolatedRequest(HttpServletRequest request) {
+    this(request, true);
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    Object value = attributes.get(name);
+    if (value != null || !inheritAttributes || removedAttributes.contains(name)) {
+      return value;
+    }
+    return super.getAttribute(name);
+  }
+
+  @Override
+  public Enumeration<String> getAttributeNames() {
+    if (!inheritAttributes) {
+      return Collections.enumeration(new LinkedHashSet<>(attributes.keySet()));
+    }
+    Set<String> names = new LinkedHashSet<>();
+    Enumeration<String> e = super.getAttributeNames();
+    if (e != null) {
+      while (e.hasMoreElements()) {
+        names.add(e.nextElement());
+      }
+    }
+    names.removeAll(removedAttributes);
+    names.addAll(attributes.keySet());
+    return Collections.enumeration(names);
+  }
+
+  @Override
+  public void setAttribute(String name, Object o) {
+    if (o == null) {
+      removeAttribute(name);
+    } else {
+      removedAttributes.remove(name);
+      attributes.put(name, o);
+    }
+  }
+
+  @Override
+  public void removeAttribute(String name) {
+    attributes.remove(name);
+    if (inheritAttributes) {
+      removedAttributes.add(name);
+    }
+  }
+}
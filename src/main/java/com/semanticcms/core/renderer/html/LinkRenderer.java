@@ -1,6 +1,6 @@
 /*
  * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
- * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2019, 2020, 2021, 2022, 2023  AO Industries, Inc.
+ * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2019, 2020, 2021, 2022, 2023, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -40,7 +40,6 @@ import com.aoapps.net.URIEncoder;
 import com.aoapps.net.URIParameters;
 import com.aoapps.servlet.http.HttpServletUtil;
 import com.semanticcms.core.controller.Book;
-import com.semanticcms.core.controller.CapturePage;
 import com.semanticcms.core.controller.PageRefResolver;
 import com.semanticcms.core.controller.SemanticCMS;
 import com.semanticcms.core.model.BookRef;
@@ -201,6 +200,53 @@ public final class LinkRenderer {
     out.append('?');
   }
 
+  /**
+   * Appends the href for a link to a page, element, or anchor, before
+   * {@link HttpServletUtil#buildURL(javax.servlet.ServletRequest, javax.servlet.http.HttpServletResponse, java.lang.String, com.aoapps.net.URIParameters, boolean, boolean)}.
+   * Links within the default view of an indexed page or the current page are only a fragment.
+   *
+   * @param  element  optional, may not be used with {@code anchor}
+   * @param  anchor  optional, may not be used with {@code element}
+   * @param  index  the index of the target page in the current {@link PageIndex} or {@link PageIndex#NO_INDEX} when not indexed
+   * @param  isSamePage  when the target is the current page and not an absolute link
+   */
+  static void appendHref(
+      StringBuilder href,
+      PageRef targetPageRef,
+      String element,
+      String anchor,
+      String viewName,
+      boolean isDefaultView,
+      int index,
+      boolean isSamePage
+  ) throws IOException {
+    assert element == null || anchor == null;
+    String target = (element != null) ? element : anchor;
+    if (index != PageIndex.NO_INDEX && isDefaultView) {
+      // Link to target in indexed page (view=all mode)
+      href.append('#');
+      PageIndex.appendIdInPageInURIComponent(index, target, href);
+    } else if (target != null && isSamePage && isDefaultView) {
+      // Link to target on same page
+      href.append('#');
+      URIEncoder.encodeURIComponent(target, href);
+    } else {
+      // Link to page or target on different page (or same page, absolute or different view)
+      // TODO: Support multi-domain
+      href.append(targetPageRef.getBookRef().getPrefix());
+      href.append(targetPageRef.getPath());
+      if (!isDefaultView) {
+        boolean hasQuestion = href.lastIndexOf("?") != -1;
+        href.append(hasQuestion ? "&view=" : "?view=");
+        URIEncoder.encodeURIComponent(viewName, href);
+      }
+      if (target != null) {
+        href.append('#');
+        URIEncoder.encodeURIComponent(target, href);
+      }
+    }
+  }
+
   /**
    * Writes an href attribute with parameters.
    * Adds contextPath to URLs that begin with a slash (/).
@@ -456,7 +502,7 @@ public final class LinkRenderer {
         targetPage = currentPage;
       } else {
         // Capture required, even if capturing self
-        targetPage = CapturePage.capturePage(
+        targetPage = HtmlRenderer.getInstance(servletContext).capture(
             servletContext,
             request,
             response,
@@ -485,72 +531,19 @@ public final class LinkRenderer {
       // Write a link to the page
 
       PageIndex pageIndex = PageIndex.getCurrentPageIndex(request);
-      Integer index = pageIndex == null ? null : pageIndex.getPageIndex(targetPageRef);
+      int index = pageIndex == null ? PageIndex.NO_INDEX : pageIndex.indexOf(targetPageRef);
 
       StringBuilder href = new StringBuilder();
-      if (element == null) {
-        if (anchor == null) {
-          // Link to page
-          if (index != null && isDefaultView) {
-            href.append('#');
-            URIEncoder.encodeURIComponent(PageIndex.getRefId(index, null), href);
-          } else {
-            // TODO: Support multi-domain
-            href.append(targetBookRef.getPrefix());
-            href.append(targetPageRef.getPath());
-            if (!isDefaultView) {
-              boolean hasQuestion = href.lastIndexOf("?") != -1;
-              href.append(hasQuestion ? "&view=" : "?view=");
-              URIEncoder.encodeURIComponent(viewName, href);
-            }
-          }
-        } else {
-          // Link to anchor in page
-          if (index != null && isDefaultView) {
-            // Link to target in indexed page (view=all mode)
-            href.append('#');
-            URIEncoder.encodeURIComponent(PageIndex.getRefId(index, anchor), href);
-          } else if (!absolute && currentPage != null && currentPage.equals(targetPage) && isDefaultView) {
-            // Link to target on same page
-            href.append('#');
-            URIEncoder.encodeURIComponent(anchor, href);
-          } else {
-            // Link to target on different page (or same page, absolute or different view)
-            // TODO: Support multi-domain
-            href.append(targetBookRef.getPrefix());
-            href.append(targetPageRef.getPath());
-            if (!isDefaultView) {
-              boolean hasQuestion = href.lastIndexOf("?") != -1;
-              href.append(hasQuestion ? "&view=" : "?view=");
-              URIEncoder.encodeURIComponent(viewName, href);
-            }
-            href.append('#');
-            URIEncoder.encodeURIComponent(anchor, href);
-          }
-        }
-      } else {
-        if (index != null && isDefaultView) {
-          // Link to target in indexed page (view=all mode)
-          href.append('#');
-          URIEncoder.encodeURIComponent(PageIndex.getRefId(index, element), href);
-        } else if (!absolute && currentPage != null && currentPage.equals(targetPage) && isDefaultView) {
-          // Link to target on same page
-          href.append('#');
-          URIEncoder.encodeURIComponent(element, href);
-        } else {
-          // Link to target on different page (or same page, absolute or different view)
-          // TODO: Support multi-domain
-          href.append(targetBookRef.getPrefix());
-          href.append(targetPageRef.getPath());
-          if (!isDefaultView) {
-            boolean hasQuestion = href.lastIndexOf("?") != -1;
-            href.append(hasQuestion ? "&view=" : "?view=");
-            URIEncoder.encodeURIComponent(viewName, href);
-          }
-          href.append('#');
-          URIEncoder.encodeURIComponent(element, href);
-        }
-      }
+      appendHref(
+          href,
+          targetPageRef,
+          element,
+          anchor,
+          viewName,
+          isDefaultView,
+          index,
+          !absolute && currentPage != null && currentPage.equals(targetPage)
+      );
       // Add nofollow consistent with view and page settings.
       // TODO: Nofollow to missing books that cause targetPage to be null here?
       boolean nofollow = targetPage != null && !view.getAllowRobots(servletContext, request, response, targetPage);
@@ -574,7 +567,7 @@ public final class LinkRenderer {
             } else {
               span__.text(text -> writeBrokenPath(targetPageRef, element_, text));
             }
-            if (index != null) {
+            if (index != PageIndex.NO_INDEX) {
               span__.sup__any(sup -> sup
                   .text('[').text(index + 1).text(']')
               );
@@ -633,7 +626,7 @@ public final class LinkRenderer {
             } else {
               a_c.pc().text(text -> writeBrokenPath(targetPageRef, element_, text));
             }
-            if (index != null) {
+            if (index != PageIndex.NO_INDEX) {
               a_c.pc().sup__any(sup -> sup
                   .text('[').text(index + 1).text(']')
               );
@@ -1,6 +1,6 @@
 /*
  * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
- * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2018, 2019, 2020, 2021, 2022, 2023  AO Industries, Inc.
+ * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2018, 2019, 2020, 2021, 2022, 2023, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -38,10 +38,8 @@ import com.aoapps.net.DomainName;
 import com.aoapps.net.Path;
 import com.aoapps.net.URIDecoder;
 import com.aoapps.net.URIEncoder;
-import com.semanticcms.core.controller.CapturePage;
 import com.semanticcms.core.controller.PageRefResolver;
 import com.semanticcms.core.controller.PageUtils;
-import com.semanticcms.core.controller.SemanticCMS;
 import com.semanticcms.core.model.ChildRef;
 import com.semanticcms.core.model.Element;
 import com.semanticcms.core.model.Node;
@@ -126,12 +124,12 @@ public final class NavigationTreeRenderer {
       }
     }
     if (childRefs != null) {
-      SemanticCMS semanticCms = SemanticCMS.getInstance(servletContext);
+      HtmlRenderer htmlRenderer = HtmlRenderer.getInstance(servletContext);
       for (ChildRef childRef : childRefs) {
         PageRef childPageRef = childRef.getPageRef();
         // Child is in an accessible book
-        if (semanticCms.getBook(childPageRef.getBookRef()).isAccessible()) {
-          Page childPage = CapturePage.capturePage(servletContext, request, response, childPageRef, includeElements || metaCapture ? CaptureLevel.META : CaptureLevel.PAGE);
+        if (htmlRenderer.isAccessible(childPageRef.getBookRef())) {
+          Page childPage = htmlRenderer.capture(servletContext, request, response, childPageRef, includeElements || metaCapture ? CaptureLevel.META : CaptureLevel.PAGE);
           childNodes.add(childPage);
         }
       }
@@ -143,7 +141,7 @@ public final class NavigationTreeRenderer {
       ServletContext servletContext,
       HttpServletRequest request,
       HttpServletResponse response,
-      SemanticCMS semanticCms,
+      HtmlRenderer htmlRenderer,
       PageRef linksTo,
       Set<Node> nodesWithLinks,
       Set<Node> nodesWithChildLinks,
@@ -159,7 +157,7 @@ public final class NavigationTreeRenderer {
       for (Element childElem : node.getChildElements()) {
         if (
             !childElem.isHidden()
-                && findLinks(servletContext, request, response, semanticCms, linksTo, nodesWithLinks, nodesWithChildLinks, childElem, includeElements)
+                && findLinks(servletContext, request, response, htmlRenderer, linksTo, nodesWithLinks, nodesWithChildLinks, childElem, includeElements)
         ) {
           hasChildLink = true;
         }
@@ -182,9 +180,9 @@ public final class NavigationTreeRenderer {
       for (ChildRef childRef : ((Page) node).getChildRefs()) {
         PageRef childPageRef = childRef.getPageRef();
         // Child is in an accessible book
-        if (semanticCms.getBook(childPageRef.getBookRef()).isAccessible()) {
-          Page child = CapturePage.capturePage(servletContext, request, response, childPageRef, CaptureLevel.META);
-          if (findLinks(servletContext, request, response, semanticCms, linksTo, nodesWithLinks, nodesWithChildLinks, child, includeElements)) {
+        if (htmlRenderer.isAccessible(childPageRef.getBookRef())) {
+          Page child = htmlRenderer.capture(servletContext, request, response, childPageRef, CaptureLevel.META);
+          if (findLinks(servletContext, request, response, htmlRenderer, linksTo, nodesWithLinks, nodesWithChildLinks, child, includeElements)) {
             hasChildLink = true;
           }
         }
@@ -369,7 +367,7 @@ public final class NavigationTreeRenderer {
           servletContext,
           request,
           response,
-          SemanticCMS.getInstance(servletContext),
+          HtmlRenderer.getInstance(servletContext),
           linksTo,
           nodesWithLinks,
           nodesWithChildLinks,
@@ -567,15 +565,13 @@ public final class NavigationTreeRenderer {
         }
       }
       a.target(target);
-      Integer index = pageIndex == null ? null : pageIndex.getPageIndex(pageRef);
+      int index = pageIndex == null ? PageIndex.NO_INDEX : pageIndex.indexOf(pageRef);
       StringBuilder href = new StringBuilder();
-      if (index != null) {
+      if (index != PageIndex.NO_INDEX) {
         href.append('#');
-        URIEncoder.encodeURIComponent(
-            PageIndex.getRefId(
-                index,
-                element == null ? null : element.getId()
-            ),
+        PageIndex.appendIdInPageInURIComponent(
+            index,
+            element == null ? null : element.getId(),
             href
         );
       } else {
@@ -590,7 +586,7 @@ public final class NavigationTreeRenderer {
         } else {
           a__.text(node);
         }
-        if (index != null) {
+        if (index != PageIndex.NO_INDEX) {
           a__.sup__any(sup -> sup
               .text('[').text(index + 1).text(']')
           );
@@ -1,6 +1,6 @@
 /*
  * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
- * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2019, 2020, 2021, 2022  AO Industries, Inc.
+ * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2019, 2020, 2021, 2022, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -23,24 +23,46 @@
 
 package com.semanticcms.core.renderer.html;
 
+import static com.aoapps.encoding.TextInXhtmlAttributeEncoder.encodeTextInXhtmlAttribute;
+
 import com.aoapps.collections.AoCollections;
 import com.aoapps.lang.NullArgumentException;
+import com.aoapps.net.URIEncoder;
 import com.aoapps.servlet.attribute.ScopeEE;
-import com.semanticcms.core.controller.CapturePage;
 import com.semanticcms.core.controller.PageDags;
 import com.semanticcms.core.controller.PageRefResolver;
+import com.semanticcms.core.model.ChildRef;
 import com.semanticcms.core.model.Page;
 import com.semanticcms.core.model.PageRef;
 import com.semanticcms.core.pages.CaptureLevel;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.jsp.SkipPageException;
 
 /**
  * Captures all pages recursively and builds an index of pages
@@ -50,11 +72,18 @@ import javax.servlet.http.HttpServletResponse;
  */
 public class PageIndex {
 
+  private static final Logger logger = Logger.getLogger(PageIndex.class.getName());
+
   /**
    * The request scope variable containing any active page index.
    */
   public static final ScopeEE.Request.Attribute<PageIndex> REQUEST_ATTRIBUTE = ScopeEE.REQUEST.attribute("pageIndex");
 
+  /**
+   * The index returned by {@link #indexOf(com.semanticcms.core.model.PageRef)} for a page not in the index.
+   */
+  public static final int NO_INDEX = -1;
+
   /**
    * Gets the current page index setup by a combined view or <code>null</code>
    * if not doing a combined view.
@@ -66,6 +95,13 @@ public class PageIndex {
 
   /**
    * Captures the root with META capture level and all children as PAGE.
+   * When the application-scoped page index cache is enabled, the index is shared across requests while the
+   * {@linkplain HtmlRenderer#getPageIndexVersion(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page) content version}
+   * is unchanged and the index is not older than the maximum age.
+   *
+   * @see  HtmlRenderer#PAGE_INDEX_CACHE_MAX_ENTRIES_INIT_PARAM
+   * @see  HtmlRenderer#PAGE_INDEX_CACHE_MAX_AGE_INIT_PARAM
+   * @see  HtmlRenderer#clearPageIndexCache()
    */
   public static PageIndex getPageIndex(
       ServletContext servletContext,
@@ -73,56 +109,280 @@ public class PageIndex {
       HttpServletResponse response,
       PageRef rootPageRef
   ) throws ServletException, IOException {
-    return new PageIndex(
-        servletContext,
-        request,
-        response,
-        CapturePage.capturePage(
-            servletContext,
-            request,
-            response,
-            rootPageRef,
-            CaptureLevel.META
-        )
+    HtmlRenderer htmlRenderer = HtmlRenderer.getInstance(servletContext);
+    Page rootPage = htmlRenderer.capture(servletContext, request, response, rootPageRef, CaptureLevel.META);
+    PageIndexCache cache = htmlRenderer.getPageIndexCache();
+    if (!cache.isEnabled()) {
+      return newPageIndex(servletContext, request, response, htmlRenderer, rootPage);
+    }
+    long version = htmlRenderer.getPageIndexVersion(servletContext, request, response, rootPage);
+    PageIndex pageIndex = cache.get(rootPageRef, version);
+    if (pageIndex == null) {
+      long generation = cache.getGeneration();
+      pageIndex = newPageIndex(servletContext, request, response, htmlRenderer, rootPage);
+      cache.put(rootPageRef, version, generation, pageIndex);
+    }
+    return pageIndex;
+  }
+
+  private static PageIndex newPageIndex(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      HtmlRenderer htmlRenderer,
+      Page rootPage
+  ) throws ServletException, IOException {
+    int threads = htmlRenderer.getPageIndexThreads();
+    List<Page> pageList;
+    if (threads == 1) {
+      pageList = PageDags.convertPageDagToList(
+          servletContext,
+          request,
+          response,
+          rootPage,
+          CaptureLevel.PAGE
+      );
+    } else {
+      pageList = convertPageDagToList(
+          servletContext,
+          request,
+          response,
+          htmlRenderer,
+          rootPage,
+          CaptureLevel.PAGE
+      );
+    }
+    return new PageIndex(rootPage, pageList);
+  }
+
+  /**
+   * Captures all pages in the DAG of the given root page, in the same order as
+   * {@link PageDags#convertPageDagToList(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.semanticcms.core.pages.CaptureLevel)}:
+   * depth-first, children in order, each page once, and only in accessible books.
+   *
+   * <p>The DAG is discovered level by level, with the pages of each level captured concurrently on the
+   * {@linkplain HtmlRenderer#getPageIndexExecutor() shared pool of page index threads}, while the request thread
+   * waits.  Each capture has its own {@linkplain IsolatedRequest isolated request} that does not inherit the
+   * attributes of the request, other than its {@linkplain RenderTrace trace}.  The order is then found from the
+   * captured pages, so does not depend on the order in which captures complete.  No capture is running once this
+   * returns, even on error.</p>
+   *
+   * @param  rootPage  the root page, which is included as-is
+   */
+  static List<Page> convertPageDagToList(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      HtmlRenderer htmlRenderer,
+      Page rootPage,
+      CaptureLevel level
+  ) throws ServletException, IOException {
+    ExecutorService executor = htmlRenderer.getPageIndexExecutor();
+    RenderTrace trace = RenderTrace.getTrace(request);
+    Map<PageRef, Page> pages = new HashMap<>();
+    pages.put(rootPage.getPageRef(), rootPage);
+    List<Page> currentLevel = Collections.singletonList(rootPage);
+    while (true) {
+      // Discover the next level, in order
+      Set<PageRef> nextRefs = new LinkedHashSet<>();
+      for (Page page : currentLevel) {
+        for (ChildRef childRef : page.getChildRefs()) {
+          PageRef childPageRef = childRef.getPageRef();
+          // Child is in an accessible book
+          if (!pages.containsKey(childPageRef) && htmlRenderer.isAccessible(childPageRef.getBookRef())) {
+            nextRefs.add(childPageRef);
+          }
+        }
+      }
+      if (nextRefs.isEmpty()) {
+        break;
+      }
+      // Capture the next level concurrently
+      AtomicBoolean aborted = new AtomicBoolean();
+      CountDownLatch done = new CountDownLatch(nextRefs.size());
+      List<Future<Page>> futures = new ArrayList<>(nextRefs.size());
+      try {
+        for (PageRef pageRef : nextRefs) {
+          // Created on the request thread, which is the only thread to access the request attributes
+          IsolatedRequest isolated = new IsolatedRequest(request, false);
+          if (trace != null) {
+            RenderTrace.setTrace(isolated, trace);
+          }
+          futures.add(executor.submit(() -> {
+            try {
+              return aborted.get() ? null : htmlRenderer.capture(servletContext, isolated, response, pageRef, level);
+            } finally {
+              done.countDown();
+            }
+          }));
+        }
+        List<Page> nextLevel = new ArrayList<>(futures.size());
+        Iterator<PageRef> nextRefIter = nextRefs.iterator();
+        for (Future<Page> future : futures) {
+          Page page = getCaptured(future);
+          pages.put(nextRefIter.next(), page);
+          nextLevel.add(page);
+        }
+        currentLevel = nextLevel;
+      } finally {
+        if (done.getCount() != 0) {
+          // The request must not be used once this returns: skip captures not yet started and wait for the rest
+          aborted.set(true);
+          for (int i = futures.size(); i < nextRefs.size(); i++) {
+            done.countDown();
+          }
+          awaitCaptures(done);
+        }
+      }
+    }
+    // Order depth-first, as the pages would have been visited one after another
+    List<Page> pageList = new ArrayList<>(pages.size());
+    Set<PageRef> visited = new HashSet<>(pages.size() * 4 / 3 + 1);
+    Deque<Page> stack = new ArrayDeque<>();
+    stack.push(rootPage);
+    while (!stack.isEmpty()) {
+      Page page = stack.pop();
+      if (visited.add(page.getPageRef())) {
+        pageList.add(page);
+        // Push in reverse, so the first child is visited first
+        List<ChildRef> childRefs = new ArrayList<>(page.getChildRefs());
+        for (int i = childRefs.size() - 1; i >= 0; i--) {
+          Page child = pages.get(childRefs.get(i).getPageRef());
+          if (child != null) {
+            stack.push(child);
+          }
+        }
+      }
+    }
+    return Collections.unmodifiableList(pageList);
+  }
+
+  private static void awaitCaptures(CountDownLatch done) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          if (done.await(1, TimeUnit.MINUTES)) {
+            return;
+          }
+          logger.warning("Waiting for capture threads to complete");
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static Page getCaptured(Future<Page> future) throws ServletException, IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      InterruptedIOException ioErr = new InterruptedIOException();
+      ioErr.initCause(e);
+      throw ioErr;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ServletException) {
+        throw (ServletException) cause;
+      }
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ServletException(cause);
+    }
+  }
+
+  /**
+   * The largest number of "page#" prefixes that will be cached.  Indexes beyond this are rendered on each call.
+   */
+  private static final int MAX_CACHED_PREFIXES = 1 << 16;
+
+  /**
+   * The initial number of "page#" prefixes cached.
+   */
+  private static final int INITIAL_CACHED_PREFIXES = 256;
+
+  /**
+   * The pre-rendered "page#" prefixes, by index.  Grown as larger indexes are requested, up to
+   * {@link #MAX_CACHED_PREFIXES}.  A race while growing only results in equal prefixes being rendered twice.
+   */
+  private static volatile String[] prefixes = renderPrefixes(new String[0], INITIAL_CACHED_PREFIXES);
+
+  private static String[] renderPrefixes(String[] existing, int size) {
+    String[] newPrefixes = Arrays.copyOf(existing, size);
+    for (int i = existing.length; i < size; i++) {
+      newPrefixes[i] = "page" + (i + 1);
+    }
+    return newPrefixes;
+  }
+
+  /**
+   * Gets the "page#" prefix for the given index.  These contain only ASCII letters and digits, so
+   * may be written without encoding in any context.
+   */
+  static String getPrefix(int index) {
+    String[] cached = prefixes;
+    if (index < cached.length) {
+      return cached[index];
+    }
+    if (index >= MAX_CACHED_PREFIXES) {
+      return "page" + (index + 1);
+    }
+    cached = renderPrefixes(
+        cached,
+        Math.min(Math.max(cached.length << 1, Integer.highestOneBit(index) << 1), MAX_CACHED_PREFIXES)
     );
+    prefixes = cached;
+    return cached[index];
   }
 
   /**
    * Gets an id for use in referencing the page at the given index.
-   * If the index is non-null, as in a combined view, will be "page#-id".
+   * If the index is not {@link #NO_INDEX}, as in a combined view, will be "page#-id".
    * Otherwise, the id is unchanged.
    *
    * @param  id  optional, id not added when null or empty
    *
-   * @see  #appendIdInPage(java.lang.Integer, java.lang.String, java.lang.Appendable)
+   * @see  #appendIdInPage(int, java.lang.String, java.lang.Appendable)
+   * @see  #appendIdInPageInXhtmlAttribute(int, java.lang.String, java.lang.Appendable)
+   * @see  #appendIdInPageInURIComponent(int, java.lang.String, java.lang.StringBuilder)
    */
-  public static String getRefId(Integer index, String id) {
-    if (index != null) {
-      String indexPlusOne = Integer.toString(index + 1);
-      StringBuilder out = new StringBuilder(
-          4 // "page"
-              + indexPlusOne.length()
-              + (
-              id == null || id.isEmpty()
-                  ? 0
-                  : (
-                  1 // '-'
-                      + id.length()
-              )
-          )
-      );
-      out.append("page");
-      out.append(indexPlusOne);
-      if (id != null && !id.isEmpty()) {
-        out.append('-');
-        out.append(id);
+  public static String getRefId(int index, String id) {
+    if (index != NO_INDEX) {
+      String prefix = getPrefix(index);
+      if (id == null || id.isEmpty()) {
+        return prefix;
       }
-      return out.toString();
+      return prefix.concat("-").concat(id);
     } else {
       return id;
     }
   }
 
+  /**
+   * Gets an id for use in referencing the page at the given index.
+   * If the index is non-null, as in a combined view, will be "page#-id".
+   * Otherwise, the id is unchanged.
+   *
+   * @param  id  optional, id not added when null or empty
+   *
+   * @see  #getRefId(int, java.lang.String)
+   */
+  public static String getRefId(Integer index, String id) {
+    return getRefId(index == null ? NO_INDEX : index, id);
+  }
+
   /**
    * Gets an id for use in the current page.  If the page is part of a page index,
    * as in a combined view, will be "page#-id".  Otherwise, the id is unchanged.
@@ -139,18 +399,13 @@ public class PageIndex {
     if (pageIndex == null) {
       return id;
     }
-    Integer index = pageIndex.getPageIndex(PageRefResolver.getCurrentPageRef(servletContext, request));
+    int index = pageIndex.indexOf(PageRefResolver.getCurrentPageRef(servletContext, request));
     // Page not in index
-    if (index == null) {
+    if (index == NO_INDEX) {
       return id;
     }
-    if (id == null || id.isEmpty()) {
-      // Page in index
-      return "page" + (index + 1);
-    } else {
-      // Page in index with id
-      return "page" + (index + 1) + '-' + id;
-    }
+    // Page in index
+    return getRefId(index, id);
   }
 
   /**
@@ -189,18 +444,13 @@ public class PageIndex {
     if (pageIndex == null) {
       return id;
     }
-    Integer index = pageIndex.getPageIndex(page.getPageRef());
+    int index = pageIndex.indexOf(page.getPageRef());
     // Page not in index
-    if (index == null) {
+    if (index == NO_INDEX) {
       return id;
     }
-    if (id == null || id.isEmpty()) {
-      // Page in index
-      return "page" + (index + 1);
-    } else {
-      // Page in index with id
-      return "page" + (index + 1) + '-' + id;
-    }
+    // Page in index
+    return getRefId(index, id);
   }
 
   /**
@@ -221,16 +471,14 @@ public class PageIndex {
 
   /**
    * Appends an id for use in referencing the page at the given index.
-   * If the index is non-null, as in a combined view, will be "page#-id".
+   * If the index is not {@link #NO_INDEX}, as in a combined view, will be "page#-id".
    * Otherwise, the id is unchanged.
    *
    * @param  id  optional, id not added when null or empty
    */
-  // TODO: Encoder variants
-  public static void appendIdInPage(Integer index, String id, Appendable out) throws IOException {
-    if (index != null) {
-      out.append("page");
-      out.append(Integer.toString(index + 1));
+  public static void appendIdInPage(int index, String id, Appendable out) throws IOException {
+    if (index != NO_INDEX) {
+      out.append(getPrefix(index));
       if (id != null && !id.isEmpty()) {
         out.append('-');
       }
@@ -240,6 +488,88 @@ public class PageIndex {
     }
   }
 
+  /**
+   * Appends an id for use in referencing the page at the given index, encoded for an XHTML attribute.
+   * If the index is not {@link #NO_INDEX}, as in a combined view, will be "page#-id".
+   * Otherwise, the id is unchanged.
+   *
+   * <p>This is equivalent to encoding the result of {@link #getRefId(int, java.lang.String)}, but without
+   * building the intermediate string.</p>
+   *
+   * @param  id  optional, id not added when null or empty
+   */
+  public static void appendIdInPageInXhtmlAttribute(int index, String id, Appendable out) throws IOException {
+    if (index != NO_INDEX) {
+      // Prefix is only letters and digits, and '-' is safe in attributes
+      out.append(getPrefix(index));
+      if (id != null && !id.isEmpty()) {
+        out.append('-');
+      }
+    }
+    if (id != null && !id.isEmpty()) {
+      encodeTextInXhtmlAttribute(id, out);
+    }
+  }
+
+  /**
+   * Appends an id for use in referencing the page at the given index, encoded as a URI component,
+   * such as the fragment of an <code>href</code>.
+   * If the index is not {@link #NO_INDEX}, as in a combined view, will be "page#-id".
+   * Otherwise, the id is unchanged.
+   *
+   * <p>This is equivalent to encoding the result of {@link #getRefId(int, java.lang.String)}, but without
+   * building the intermediate string.</p>
+   *
+   * @param  id  optional, id not added when null or empty
+   */
+  public static void appendIdInPageInURIComponent(int index, String id, Appendable out) throws IOException {
+    if (index != NO_INDEX) {
+      // Prefix is only letters and digits, and '-' is unreserved
+      out.append(getPrefix(index));
+      if (id != null && !id.isEmpty()) {
+        out.append('-');
+      }
+    }
+    if (id != null && !id.isEmpty()) {
+      URIEncoder.encodeURIComponent(id, out);
+    }
+  }
+
+  /**
+   * Appends an id for use in referencing the page at the given index, encoded as a URI component,
+   * such as the fragment of an <code>href</code>.
+   * If the index is not {@link #NO_INDEX}, as in a combined view, will be "page#-id".
+   * Otherwise, the id is unchanged.
+   *
+   * @param  id  optional, id not added when null or empty
+   *
+   * @see  #appendIdInPageInURIComponent(int, java.lang.String, java.lang.Appendable)
+   */
+  public static void appendIdInPageInURIComponent(int index, String id, StringBuilder out) {
+    if (index != NO_INDEX) {
+      out.append(getPrefix(index));
+      if (id != null && !id.isEmpty()) {
+        out.append('-');
+      }
+    }
+    if (id != null && !id.isEmpty()) {
+      URIEncoder.encodeURIComponent(id, out);
+    }
+  }
+
+  /**
+   * Appends an id for use in referencing the page at the given index.
+   * If the index is non-null, as in a combined view, will be "page#-id".
+   * Otherwise, the id is unchanged.
+   *
+   * @param  id  optional, id not added when null or empty
+   *
+   * @see  #appendIdInPage(int, java.lang.String, java.lang.Appendable)
+   */
+  public static void appendIdInPage(Integer index, String id, Appendable out) throws IOException {
+    appendIdInPage(index == null ? NO_INDEX : index, id, out);
+  }
+
   /**
    * Appends an id for use in referencing the given page.
    *
@@ -250,7 +580,7 @@ public class PageIndex {
   public static void appendIdInPage(PageIndex pageIndex, Page page, String id, Appendable out) throws IOException {
     if (pageIndex != null && page != null) {
       appendIdInPage(
-          pageIndex.getPageIndex(page.getPageRef()),
+          pageIndex.indexOf(page.getPageRef()),
           id,
           out
       );
@@ -261,31 +591,57 @@ public class PageIndex {
     }
   }
 
+  /**
+   * Spreads the higher bits of a hash code into the lower bits used to select a slot, as done by {@link java.util.HashMap}.
+   */
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
   private final Page rootPage;
   private final List<Page> pageList;
-  private final Map<PageRef, Integer> pageIndexes;
 
-  private PageIndex(
-      ServletContext servletContext,
-      HttpServletRequest request,
-      HttpServletResponse response,
-      Page rootPage
-  ) throws ServletException, IOException {
+  /**
+   * The page references, by index.
+   */
+  private final PageRef[] pageRefs;
+
+  /**
+   * Open-addressing table, with linear probing, of one plus the index of each page, or {@code 0} for an empty slot.
+   * The capacity is a power of two, at least twice the number of pages.
+   */
+  private final int[] slots;
+
+  /**
+   * The boxed map, created on first use by {@link #getPageIndexes()}.
+   */
+  private volatile Map<PageRef, Integer> pageIndexes;
+
+  /**
+   * @param  pageList  the pages in order, must be unmodifiable
+   */
+  PageIndex(Page rootPage, List<Page> pageList) {
     this.rootPage = rootPage;
-    this.pageList = PageDags.convertPageDagToList(
-        servletContext,
-        request,
-        response,
-        rootPage,
-        CaptureLevel.PAGE
-    );
+    this.pageList = pageList;
     int size = pageList.size();
     // Index pages
-    Map<PageRef, Integer> newPageIndexes = AoCollections.newHashMap(size);
+    pageRefs = new PageRef[size];
+    slots = new int[Integer.highestOneBit(Math.max(size, 1) * 4 - 1)];
+    int mask = slots.length - 1;
     for (int i = 0; i < size; i++) {
-      newPageIndexes.put(pageList.get(i).getPageRef(), i);
+      PageRef pageRef = pageList.get(i).getPageRef();
+      pageRefs[i] = pageRef;
+      int slot = spread(pageRef.hashCode()) & mask;
+      while (true) {
+        int s = slots[slot];
+        if (s == 0 || pageRefs[s - 1].equals(pageRef)) {
+          // Last index wins, as when put into a map
+          slots[slot] = i + 1;
+          break;
+        }
+        slot = (slot + 1) & mask;
+      }
     }
-    this.pageIndexes = Collections.unmodifiableMap(newPageIndexes);
   }
 
   /**
@@ -295,17 +651,119 @@ public class PageIndex {
     return rootPage;
   }
 
+  /**
+   * The pages in order, starting with the root page, captured in PAGE level other than the root page.
+   * Combined views that require the body of each page should use
+   * {@link #writePages(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.pages.CaptureLevel, java.io.Writer, com.semanticcms.core.renderer.html.PageIndex.PageWriter)}
+   * instead of capturing every page before writing.
+   */
   @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
   public List<Page> getPageList() {
     return pageList;
   }
 
-  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+  /**
+   * Gets a map of the index of each page.
+   *
+   * @see  #indexOf(com.semanticcms.core.model.PageRef)
+   */
   public Map<PageRef, Integer> getPageIndexes() {
-    return pageIndexes;
+    Map<PageRef, Integer> map = pageIndexes;
+    if (map == null) {
+      int size = pageRefs.length;
+      Map<PageRef, Integer> newPageIndexes = AoCollections.newHashMap(size);
+      for (int i = 0; i < size; i++) {
+        newPageIndexes.put(pageRefs[i], i);
+      }
+      map = Collections.unmodifiableMap(newPageIndexes);
+      pageIndexes = map;
+    }
+    return map;
+  }
+
+  /**
+   * Gets the index of the given page without boxing.
+   *
+   * @return  the index or {@link #NO_INDEX} when the page is not in this index
+   */
+  public int indexOf(PageRef pageRef) {
+    int[] table = slots;
+    int mask = table.length - 1;
+    int slot = spread(pageRef.hashCode()) & mask;
+    while (true) {
+      int s = table[slot];
+      if (s == 0) {
+        return NO_INDEX;
+      }
+      if (pageRefs[s - 1].equals(pageRef)) {
+        return s - 1;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Writes one page of a streaming combined view.
+   *
+   * @see  #writePages(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.pages.CaptureLevel, java.io.Writer, com.semanticcms.core.renderer.html.PageIndex.PageWriter)
+   */
+  @FunctionalInterface
+  public static interface PageWriter {
+
+    /**
+     * Writes the given page.  The page should not be retained after this returns.
+     *
+     * @param  index  the index of the page, as used in "page#-id"
+     */
+    void writePage(int index, Page page) throws ServletException, IOException, SkipPageException;
+  }
+
+  /**
+   * Streams the pages of a combined view in order, capturing, writing, and releasing one page at a time.  Only one
+   * page captured at the given level is referenced at once, and the first page may reach the client before the rest
+   * are captured.  The ordering and index are those of this page index, captured up front at a lower level.
+   *
+   * <p>Every page is captured again, even at or below the level already held by this index, since the index may be
+   * shared across requests and its pages out of date.  Each page is captured on an isolated request that does not
+   * inherit the attributes of the given request, so it is not retained by the request capture cache once written.
+   * Pages that depend on request attributes set by the application before the capture will not see them.</p>
+   *
+   * <p>After each page, when {@linkplain Theme#isEarlyFlush(javax.servlet.ServletRequest) early flush} is allowed, the
+   * writer and response are flushed to the client.  Once flushed, the response is committed and the status and headers
+   * may no longer be changed.</p>
+   *
+   * @param  level  the level to capture each page, typically {@link CaptureLevel#BODY}
+   * @param  out    the writer the pages are written to, flushed before the response
+   */
+  public void writePages(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      CaptureLevel level,
+      Writer out,
+      PageWriter pageWriter
+  ) throws ServletException, IOException, SkipPageException {
+    HtmlRenderer htmlRenderer = HtmlRenderer.getInstance(servletContext);
+    boolean earlyFlush = Theme.isEarlyFlush(request);
+    for (int i = 0; i < pageRefs.length; i++) {
+      Page page = htmlRenderer.captureIsolated(servletContext, request, response, pageRefs[i], level);
+      pageWriter.writePage(i, page);
+      if (earlyFlush) {
+        out.flush();
+        response.flushBuffer();
+      }
+    }
   }
 
+  /**
+   * Gets the index of the given page.
+   *
+   * @return  the index or {@code null} when the page is not in this index
+   *
+   * @see  #indexOf(com.semanticcms.core.model.PageRef)
+   */
   public Integer getPageIndex(PageRef pagePath) {
-    return pageIndexes.get(pagePath);
+    int index = indexOf(pagePath);
+    return (index == NO_INDEX) ? null : index;
   }
 }
@@ -0,0 +1,148 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import com.semanticcms.core.model.PageRef;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An application-scoped cache of {@link PageIndex}, by root page, shared by combined views across requests.
+ *
+ * <p>Entries are invalidated when the
+ * {@linkplain HtmlRenderer#getPageIndexVersion(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page) content version}
+ * differs from the version when built, or once older than the maximum age.  The number of entries is bounded, evicting
+ * the least recently used.</p>
+ */
+final class PageIndexCache {
+
+  private static final class Entry {
+
+    private final long version;
+    private final PageIndex pageIndex;
+
+    /**
+     * The time created, in {@link System#nanoTime()}, used for expiration.
+     */
+    private final long created;
+
+    /**
+     * The time last accessed, in {@link System#nanoTime()}, used for eviction.
+     */
+    private volatile long lastAccessed;
+
+    private Entry(long version, PageIndex pageIndex) {
+      this.version = version;
+      this.pageIndex = pageIndex;
+      this.created = System.nanoTime();
+      this.lastAccessed = created;
+    }
+  }
+
+  private final ConcurrentHashMap<PageRef, Entry> entries = new ConcurrentHashMap<>();
+  private final int maxEntries;
+  private final long maxAgeNanos;
+
+  /**
+   * Incremented on {@link #clear()}, so indexes built before a clear are not added after it.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * @param  maxEntries   The maximum number of page indexes retained, or zero to disable the cache.
+   * @param  maxAgeNanos  The maximum time page indexes are retained after being added, or zero to not expire.
+   */
+  PageIndexCache(int maxEntries, long maxAgeNanos) {
+    this.maxEntries = maxEntries;
+    this.maxAgeNanos = maxAgeNanos;
+  }
+
+  /**
+   * Checks if this cache is enabled.
+   */
+  boolean isEnabled() {
+    return maxEntries > 0;
+  }
+
+  /**
+   * Gets the generation, to be passed to {@link #put(com.semanticcms.core.model.PageRef, long, long, com.semanticcms.core.renderer.html.PageIndex)}
+   * after building a page index.
+   */
+  long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Gets a cached page index, removing any stale entry.
+   *
+   * @return  The page index or {@code null} when not cached, stale, or expired
+   */
+  PageIndex get(PageRef rootPageRef, long version) {
+    Entry entry = entries.get(rootPageRef);
+    if (entry == null) {
+      return null;
+    }
+    long now = System.nanoTime();
+    if (entry.version != version || (maxAgeNanos != 0 && (now - entry.created) > maxAgeNanos)) {
+      entries.remove(rootPageRef, entry);
+      return null;
+    }
+    entry.lastAccessed = now;
+    return entry.pageIndex;
+  }
+
+  /**
+   * Adds a page index to the cache, evicting the least recently used entries as needed.
+   *
+   * @param  generation  The {@linkplain #getGeneration() generation} before the page index was built.
+   *                     Not added when the cache has since been cleared.
+   */
+  void put(PageRef rootPageRef, long version, long generation, PageIndex pageIndex) {
+    if (generation != this.generation.get()) {
+      return;
+    }
+    entries.put(rootPageRef, new Entry(version, pageIndex));
+    while (entries.size() > maxEntries) {
+      // Scan for the least recently used, which is acceptable since there are few entries
+      Map.Entry<PageRef, Entry> eldest = null;
+      for (Map.Entry<PageRef, Entry> e : entries.entrySet()) {
+        if (eldest == null || (e.getValue().lastAccessed - eldest.getValue().lastAccessed) < 0) {
+          eldest = e;
+        }
+      }
+      if (eldest == null) {
+        break;
+      }
+      entries.remove(eldest.getKey(), eldest.getValue());
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  void clear() {
+    generation.incrementAndGet();
+    entries.clear();
+  }
+}
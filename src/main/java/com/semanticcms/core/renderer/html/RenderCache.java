@@ -0,0 +1,531 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html;
+
+import com.aoapps.encoding.Doctype;
+import com.aoapps.encoding.Serialization;
+import com.semanticcms.core.model.PageRef;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * An application-scoped cache of fully rendered pages.
+ * Only pages where both the view and the theme are {@linkplain View#isCacheable() cacheable} are stored.
+ *
+ * <p>Entries are invalidated when the {@linkplain HtmlRenderer#getRegistryVersion() registry version} changes or
+ * when the {@linkplain HtmlRenderer#getLastModified(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.renderer.html.View, com.semanticcms.core.model.Page) last modified time}
+ * differs from the time when rendered.  The total size is bounded, evicting the least recently used entries.</p>
+ *
+ * <p>Each entry also stores gzip and deflate variants, compressed once when cached, which are sent directly when
+ * allowed by {@code Accept-Encoding}.</p>
+ */
+final class RenderCache {
+
+  /**
+   * The key identifying rendered output.
+   * Includes the scheme, host, and port, since rendered pages and preload headers may contain absolute URLs.
+   */
+  static final class Key {
+
+    private final String scheme;
+    private final String serverName;
+    private final int serverPort;
+    private final PageRef pageRef;
+    private final View view;
+    private final Theme theme;
+    private final Serialization serialization;
+    private final Doctype doctype;
+    private final boolean exporting;
+    private final int hash;
+
+    Key(
+        String scheme,
+        String serverName,
+        int serverPort,
+        PageRef pageRef,
+        View view,
+        Theme theme,
+        Serialization serialization,
+        Doctype doctype,
+        boolean exporting
+    ) {
+      this.scheme = scheme;
+      this.serverName = serverName;
+      this.serverPort = serverPort;
+      this.pageRef = pageRef;
+      this.view = view;
+      this.theme = theme;
+      this.serialization = serialization;
+      this.doctype = doctype;
+      this.exporting = exporting;
+      int h = Objects.hashCode(scheme);
+      h = h * 31 + Objects.hashCode(serverName);
+      h = h * 31 + serverPort;
+      h = h * 31 + pageRef.hashCode();
+      h = h * 31 + view.hashCode();
+      h = h * 31 + theme.hashCode();
+      h = h * 31 + Objects.hashCode(serialization);
+      h = h * 31 + Objects.hashCode(doctype);
+      h = h * 31 + Boolean.hashCode(exporting);
+      this.hash = h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return
+          hash == other.hash
+              && exporting == other.exporting
+              && serverPort == other.serverPort
+              && serialization == other.serialization
+              && doctype == other.doctype
+              && Objects.equals(scheme, other.scheme)
+              && Objects.equals(serverName, other.serverName)
+              && pageRef.equals(other.pageRef)
+              && view.equals(other.view)
+              && theme.equals(other.theme);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * A rendered page.
+   */
+  static final class Entry {
+
+    private final long registryVersion;
+    private final long lastModified;
+    private final String contentType;
+    private final Map<String, List<String>> addedHeaders;
+    private final Map<String, List<String>> replacedHeaders;
+    private final byte[] bytes;
+    private final byte[] gzipBytes;
+    private final byte[] deflateBytes;
+    private final int size;
+
+    /**
+     * @param  addedHeaders     The header values added while rendering, which are added again on each hit.
+     * @param  replacedHeaders  The headers replaced while rendering, which are set again on each hit.
+     *                          Neither includes {@code Content-Type}, {@code Content-Length}, or
+     *                          {@code Last-Modified}.
+     */
+    Entry(
+        long registryVersion,
+        long lastModified,
+        String contentType,
+        Map<String, List<String>> addedHeaders,
+        Map<String, List<String>> replacedHeaders,
+        byte[] bytes
+    ) {
+      this.registryVersion = registryVersion;
+      this.lastModified = lastModified;
+      this.contentType = contentType;
+      this.addedHeaders = addedHeaders.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(addedHeaders);
+      this.replacedHeaders = replacedHeaders.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(replacedHeaders);
+      this.bytes = bytes;
+      this.gzipBytes = compress(bytes, GZIP);
+      this.deflateBytes = compress(bytes, DEFLATE);
+      this.size = bytes.length
+          + (gzipBytes == null ? 0 : gzipBytes.length)
+          + (deflateBytes == null ? 0 : deflateBytes.length);
+    }
+
+    String getContentType() {
+      return contentType;
+    }
+
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    Map<String, List<String>> getAddedHeaders() {
+      return addedHeaders;
+    }
+
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    Map<String, List<String>> getReplacedHeaders() {
+      return replacedHeaders;
+    }
+
+    /**
+     * Gets the rendered bytes, which must not be modified.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Shared for performance
+    byte[] getBytes() {
+      return bytes;
+    }
+
+    /**
+     * Sends this cached page, including the headers set while rendering, such as the
+     * {@code Link: rel=preload} headers, so a hit sends the same headers as the miss that cached it.
+     *
+     * @see  #sendBody(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+     */
+    void send(HttpServletRequest request, HttpServletResponse response) throws IOException {
+      if (contentType != null) {
+        response.setContentType(contentType);
+      }
+      for (Map.Entry<String, List<String>> header : replacedHeaders.entrySet()) {
+        String name = header.getKey();
+        boolean first = true;
+        for (String value : header.getValue()) {
+          if (first) {
+            response.setHeader(name, value);
+            first = false;
+          } else {
+            response.addHeader(name, value);
+          }
+        }
+      }
+      for (Map.Entry<String, List<String>> header : addedHeaders.entrySet()) {
+        String name = header.getKey();
+        for (String value : header.getValue()) {
+          response.addHeader(name, value);
+        }
+      }
+      sendBody(request, response);
+    }
+
+    /**
+     * Sends the body of this cached page, using a precompressed variant when allowed by {@code Accept-Encoding}.
+     * Compressed variants are sent in full, without support for byte ranges.
+     *
+     * @see  BufferedResponse#send(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, byte[], int, long)
+     */
+    void sendBody(HttpServletRequest request, HttpServletResponse response) throws IOException {
+      if (gzipBytes != null || deflateBytes != null) {
+        if (!response.getHeaders(VARY_HEADER).contains(ACCEPT_ENCODING_HEADER)) {
+          response.addHeader(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+        }
+        String contentEncoding = negotiate(request.getHeader(ACCEPT_ENCODING_HEADER), gzipBytes != null, deflateBytes != null);
+        if (contentEncoding != null) {
+          ServletOutputStream out;
+          try {
+            out = response.getOutputStream();
+          } catch (IllegalStateException e) {
+            // getWriter() already called, send uncompressed
+            out = null;
+          }
+          if (out != null) {
+            byte[] encoded = GZIP.equals(contentEncoding) ? gzipBytes : deflateBytes;
+            response.setHeader(CONTENT_ENCODING_HEADER, contentEncoding);
+            response.setContentLength(encoded.length);
+            if (!"HEAD".equals(request.getMethod())) {
+              out.write(encoded);
+            }
+            return;
+          }
+        }
+      }
+      BufferedResponse.send(request, response, bytes, bytes.length, lastModified);
+    }
+  }
+
+  private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+  private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+  private static final String VARY_HEADER = "Vary";
+
+  private static final String GZIP = "gzip";
+
+  private static final String DEFLATE = "deflate";
+
+  /**
+   * Compresses bytes once, when cached.
+   *
+   * @return  The compressed bytes or {@code null} when not smaller
+   */
+  private static byte[] compress(byte[] bytes, String contentEncoding) {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream(bytes.length / 4 + 64);
+    try {
+      if (GZIP.equals(contentEncoding)) {
+        try (
+            GZIPOutputStream out = new GZIPOutputStream(bout) {
+              {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+              }
+            }
+        ) {
+          out.write(bytes);
+        }
+      } else {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bout, deflater)) {
+          out.write(bytes);
+        } finally {
+          deflater.end();
+        }
+      }
+    } catch (IOException e) {
+      throw new AssertionError("IOException should not occur on ByteArrayOutputStream", e);
+    }
+    return (bout.size() < bytes.length) ? bout.toByteArray() : null;
+  }
+
+  /**
+   * Selects the preferred content encoding from an {@code Accept-Encoding} header, preferring gzip when equal.
+   *
+   * @return  The content encoding or {@code null} to send uncompressed
+   */
+  static String negotiate(String acceptEncoding, boolean gzip, boolean deflate) {
+    if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+      return null;
+    }
+    float gzipQ = -1;
+    float deflateQ = -1;
+    float anyQ = -1;
+    for (String coding : acceptEncoding.split(",")) {
+      int semi = coding.indexOf(';');
+      String name = (semi == -1 ? coding : coding.substring(0, semi)).trim();
+      float q = 1;
+      if (semi != -1) {
+        String params = coding.substring(semi + 1).trim();
+        if (params.length() >= 2 && (params.charAt(0) == 'q' || params.charAt(0) == 'Q') && params.charAt(1) == '=') {
+          try {
+            q = Float.parseFloat(params.substring(2).trim());
+          } catch (NumberFormatException e) {
+            q = 0;
+          }
+        }
+      }
+      if (GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+        gzipQ = Math.max(gzipQ, q);
+      } else if (DEFLATE.equalsIgnoreCase(name)) {
+        deflateQ = Math.max(deflateQ, q);
+      } else if ("*".equals(name)) {
+        anyQ = Math.max(anyQ, q);
+      }
+    }
+    if (gzipQ == -1) {
+      gzipQ = anyQ;
+    }
+    if (deflateQ == -1) {
+      deflateQ = anyQ;
+    }
+    if (gzip && gzipQ > 0 && (!deflate || gzipQ >= deflateQ)) {
+      return GZIP;
+    }
+    if (deflate && deflateQ > 0) {
+      return DEFLATE;
+    }
+    return null;
+  }
+
+  private static final String SET_COOKIE_HEADER = "Set-Cookie";
+
+  /**
+   * Headers that are set on every send and are not stored.
+   */
+  private static final Set<String> unstoredHeaders;
+
+  static {
+    Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    set.add("Accept-Ranges");
+    set.add("Content-Length");
+    set.add("Content-Range");
+    set.add("Content-Type");
+    set.add("Last-Modified");
+    unstoredHeaders = Collections.unmodifiableSet(set);
+  }
+
+  /**
+   * Gets a copy of all the headers of a response, used to find the headers set while rendering.
+   *
+   * @see  #newEntry(javax.servlet.http.HttpServletResponse, java.util.Map, long, long, byte[], int)
+   */
+  static Map<String, List<String>> getHeaders(HttpServletResponse response) {
+    Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (String name : response.getHeaderNames()) {
+      headers.put(name, new ArrayList<>(response.getHeaders(name)));
+    }
+    return headers;
+  }
+
+  /**
+   * Creates a new entry from a rendered page.
+   *
+   * @param  headersBefore  The headers already set before configuring resources and rendering, from
+   *                        {@link #getHeaders(javax.servlet.http.HttpServletResponse)}.  Only the values added
+   *                        or replaced since are stored.
+   *
+   * @return  The new entry or {@code null} when the page may not be cached, such as when the status is not
+   *          {@link HttpServletResponse#SC_OK}, a cookie has been set, or the page exceeds the per-entry limit.
+   */
+  Entry newEntry(
+      HttpServletResponse response,
+      Map<String, List<String>> headersBefore,
+      long registryVersion,
+      long lastModified,
+      byte[] buffer,
+      int length
+  ) {
+    if (length > maxEntryBytes || response.getStatus() != HttpServletResponse.SC_OK) {
+      return null;
+    }
+    Map<String, List<String>> addedHeaders = new LinkedHashMap<>();
+    Map<String, List<String>> replacedHeaders = new LinkedHashMap<>();
+    for (String name : response.getHeaderNames()) {
+      if (SET_COOKIE_HEADER.equalsIgnoreCase(name)) {
+        // Cookies are per-user state
+        return null;
+      }
+      if (!unstoredHeaders.contains(name)) {
+        List<String> values = new ArrayList<>(response.getHeaders(name));
+        List<String> before = headersBefore.get(name);
+        if (before == null) {
+          addedHeaders.put(name, values);
+        } else if (values.size() >= before.size() && values.subList(0, before.size()).equals(before)) {
+          if (values.size() > before.size()) {
+            addedHeaders.put(name, new ArrayList<>(values.subList(before.size(), values.size())));
+          }
+        } else {
+          replacedHeaders.put(name, values);
+        }
+      }
+    }
+    return new Entry(
+        registryVersion,
+        lastModified,
+        response.getContentType(),
+        addedHeaders,
+        replacedHeaders,
+        Arrays.copyOf(buffer, length)
+    );
+  }
+
+  /**
+   * The entries, in access order for eviction of the least recently used.
+   * All access must be synchronized on this map, since access order is updated on {@link Map#get(java.lang.Object)}.
+   */
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final long maxBytes;
+
+  private final long maxEntryBytes;
+
+  /**
+   * The total size of all entries.
+   * Guarded by {@link #entries}.
+   */
+  private long totalBytes;
+
+  /**
+   * @param  maxBytes  The maximum number of bytes retained, or zero to disable the cache.
+   *                   A single entry may use up to one quarter of the cache.
+   */
+  RenderCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+    this.maxEntryBytes = maxBytes / 4;
+  }
+
+  /**
+   * Checks if this cache is enabled.
+   */
+  boolean isEnabled() {
+    return maxBytes > 0;
+  }
+
+  /**
+   * Gets the number of pages currently cached.
+   */
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Gets a cached page, removing any stale entry.
+   *
+   * @return  The entry or {@code null} when not cached or stale
+   */
+  Entry get(Key key, long registryVersion, long lastModified) {
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.registryVersion != registryVersion || entry.lastModified != lastModified) {
+        entries.remove(key);
+        totalBytes -= entry.size;
+        return null;
+      }
+      return entry;
+    }
+  }
+
+  /**
+   * Adds a page to the cache, evicting the least recently used entries as needed.
+   * Pages larger than the per-entry limit are not cached.
+   */
+  void put(Key key, Entry entry) {
+    int size = entry.size;
+    if (size > maxEntryBytes) {
+      return;
+    }
+    synchronized (entries) {
+      Entry old = entries.put(key, entry);
+      totalBytes += (old == null) ? size : (size - old.size);
+      // Evict from the least recently used, which is first in access order
+      Iterator<Entry> iter = entries.values().iterator();
+      while (totalBytes > maxBytes && iter.hasNext()) {
+        Entry evicted = iter.next();
+        iter.remove();
+        totalBytes -= evicted.size;
+      }
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  void clear() {
+    synchronized (entries) {
+      entries.clear();
+      totalBytes = 0;
+    }
+  }
+}
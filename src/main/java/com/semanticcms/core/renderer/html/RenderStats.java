@@ -0,0 +1,190 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free recording of per-view and per-theme render statistics.
+ * All counters are {@link LongAdder striped}, so recording does not contend between concurrent requests.
+ */
+final class RenderStats implements RenderStatsMXBean {
+
+  /**
+   * The first bucket holds times below 2<sup>{@value}</sup> nanoseconds, about one microsecond.
+   */
+  private static final int FIRST_BUCKET_BITS = 10;
+
+  /**
+   * The number of buckets, each double the previous, with the last one unbounded.
+   * The last bounded bucket ends around 137 seconds.
+   */
+  private static final int BUCKETS = 28;
+
+  private static final long[] BUCKET_LIMITS_NANOS = new long[BUCKETS];
+
+  static {
+    for (int i = 0; i < BUCKETS - 1; i++) {
+      BUCKET_LIMITS_NANOS[i] = 1L << (FIRST_BUCKET_BITS + i);
+    }
+    BUCKET_LIMITS_NANOS[BUCKETS - 1] = Long.MAX_VALUE;
+  }
+
+  private static int getBucket(long nanos) {
+    int bucket = Long.SIZE - Long.numberOfLeadingZeros(nanos >>> FIRST_BUCKET_BITS);
+    return Math.min(bucket, BUCKETS - 1);
+  }
+
+  /**
+   * A lock-free latency histogram.
+   */
+  static final class Histogram {
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private Histogram() {
+      for (int i = 0; i < BUCKETS; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    void record(long nanos) {
+      if (nanos < 0) {
+        // System.nanoTime() is monotonic, but be safe
+        nanos = 0;
+      }
+      buckets[getBucket(nanos)].increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+    }
+
+    private Latency getLatency() {
+      long[] counts = new long[BUCKETS];
+      long count = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        long bucket = buckets[i].sum();
+        counts[i] = bucket;
+        count += bucket;
+      }
+      return new Latency(count, totalNanos.sum(), maxNanos.get(), BUCKET_LIMITS_NANOS.clone(), counts);
+    }
+  }
+
+  /**
+   * The statistics for one view or theme.
+   */
+  static final class Recorder {
+
+    private final String name;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    final Histogram configureResources = new Histogram();
+    final Histogram doTheme = new Histogram();
+
+    private Recorder(String name) {
+      this.name = name;
+    }
+
+    void request() {
+      requests.increment();
+    }
+
+    void error() {
+      errors.increment();
+    }
+
+    private Stats getStats() {
+      return new Stats(
+          name,
+          requests.sum(),
+          errors.sum(),
+          configureResources.getLatency(),
+          doTheme.getLatency()
+      );
+    }
+  }
+
+  private volatile ConcurrentMap<String, Recorder> views = new ConcurrentHashMap<>();
+  private volatile ConcurrentMap<String, Recorder> themes = new ConcurrentHashMap<>();
+
+  private static Recorder getRecorder(ConcurrentMap<String, Recorder> recorders, String name) {
+    Recorder recorder = recorders.get(name);
+    if (recorder == null) {
+      recorder = recorders.computeIfAbsent(name, Recorder::new);
+    }
+    return recorder;
+  }
+
+  /**
+   * Gets the recorder for the given view.
+   */
+  Recorder getView(View view) {
+    return getRecorder(views, view.getName());
+  }
+
+  /**
+   * Gets the recorder for the given theme.
+   */
+  Recorder getTheme(Theme theme) {
+    return getRecorder(themes, theme.getName());
+  }
+
+  private static List<Stats> getStats(Map<String, Recorder> recorders) {
+    List<Stats> stats = new ArrayList<>(recorders.size());
+    for (Recorder recorder : recorders.values()) {
+      stats.add(recorder.getStats());
+    }
+    stats.sort((s1, s2) -> s1.getName().compareTo(s2.getName()));
+    return stats;
+  }
+
+  @Override
+  public List<Stats> getViews() {
+    return getStats(views);
+  }
+
+  @Override
+  public List<Stats> getThemes() {
+    return getStats(themes);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Requests already in progress continue to record into the previous statistics.</p>
+   */
+  @Override
+  public void reset() {
+    views = new ConcurrentHashMap<>();
+    themes = new ConcurrentHashMap<>();
+  }
+}
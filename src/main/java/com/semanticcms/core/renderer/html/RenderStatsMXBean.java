@@ -0,0 +1,210 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html;
+
+import java.util.List;
+
+/**
+ * Per-view and per-theme render statistics of an {@link HtmlRenderer}, registered with the platform
+ * {@link javax.management.MBeanServer} as
+ * <code>com.semanticcms.core.renderer.html:type=HtmlRenderer,context=<i>contextPath</i></code>.
+ *
+ * <p>Latencies are recorded into fixed power-of-two buckets, so percentiles are approximate to within a factor of
+ * two.  Statistics are cumulative since the application started or was last {@linkplain #reset() reset}.</p>
+ */
+public interface RenderStatsMXBean {
+
+  /**
+   * Statistics for a single view or theme.
+   */
+  final class Stats {
+
+    private final String name;
+    private final long requests;
+    private final long errors;
+    private final Latency configureResources;
+    private final Latency doTheme;
+
+    Stats(String name, long requests, long errors, Latency configureResources, Latency doTheme) {
+      this.name = name;
+      this.requests = requests;
+      this.errors = errors;
+      this.configureResources = configureResources;
+      this.doTheme = doTheme;
+    }
+
+    /**
+     * The name of the view or theme.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * The number of requests rendered, including those sent from the render cache.
+     */
+    public long getRequests() {
+      return requests;
+    }
+
+    /**
+     * The number of requests that failed while configuring resources or within the theme.
+     */
+    public long getErrors() {
+      return errors;
+    }
+
+    /**
+     * The time spent in {@link Theme#configureResources(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.renderer.html.View, com.semanticcms.core.model.Page, com.aoapps.web.resources.registry.Registry)}
+     * or {@link View#configureResources(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.renderer.html.Theme, com.semanticcms.core.model.Page, com.aoapps.web.resources.registry.Registry)}.
+     */
+    public Latency getConfigureResources() {
+      return configureResources;
+    }
+
+    /**
+     * The time spent in {@link Theme#doTheme(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.renderer.html.View, com.semanticcms.core.model.Page)}.
+     */
+    public Latency getDoTheme() {
+      return doTheme;
+    }
+  }
+
+  /**
+   * A latency histogram.
+   */
+  final class Latency {
+
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long[] bucketLimitsNanos;
+    private final long[] buckets;
+
+    Latency(long count, long totalNanos, long maxNanos, long[] bucketLimitsNanos, long[] buckets) {
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+      this.bucketLimitsNanos = bucketLimitsNanos;
+      this.buckets = buckets;
+    }
+
+    /**
+     * The number of times recorded.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * The total of all times recorded.
+     */
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    /**
+     * The mean time or {@code 0} when nothing recorded.
+     */
+    public long getMeanNanos() {
+      return count == 0 ? 0 : totalNanos / count;
+    }
+
+    /**
+     * The longest time recorded.
+     */
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    /**
+     * The approximate median time, as the upper limit of its bucket.
+     */
+    public long getP50Nanos() {
+      return getPercentileNanos(50);
+    }
+
+    /**
+     * The approximate 90th percentile time, as the upper limit of its bucket.
+     */
+    public long getP90Nanos() {
+      return getPercentileNanos(90);
+    }
+
+    /**
+     * The approximate 99th percentile time, as the upper limit of its bucket.
+     */
+    public long getP99Nanos() {
+      return getPercentileNanos(99);
+    }
+
+    private long getPercentileNanos(int percentile) {
+      long total = 0;
+      for (long bucket : buckets) {
+        total += bucket;
+      }
+      if (total == 0) {
+        return 0;
+      }
+      long threshold = (total * percentile + 99) / 100;
+      long seen = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        seen += buckets[i];
+        if (seen >= threshold) {
+          return Math.min(bucketLimitsNanos[i], maxNanos);
+        }
+      }
+      return maxNanos;
+    }
+
+    /**
+     * The exclusive upper limit of each bucket, in nanoseconds.  The last bucket is unbounded.
+     */
+    public long[] getBucketLimitsNanos() {
+      return bucketLimitsNanos.clone();
+    }
+
+    /**
+     * The number of times recorded within each bucket.
+     */
+    public long[] getBuckets() {
+      return buckets.clone();
+    }
+  }
+
+  /**
+   * Gets the statistics per view name, ordered by name.
+   */
+  List<Stats> getViews();
+
+  /**
+   * Gets the statistics per theme name, ordered by name.
+   */
+  List<Stats> getThemes();
+
+  /**
+   * Resets all statistics.
+   */
+  void reset();
+}
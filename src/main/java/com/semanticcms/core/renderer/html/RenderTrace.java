@@ -0,0 +1,379 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.semanticcms.core.model.PageRef;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * An opt-in trace of nested timing spans for a single render, enabled by
+ * {@link HtmlRenderer#TRACE_FILE_INIT_PARAM}.  Each traced request is appended to the trace file as one line of JSON.
+ *
+ * <p>The renderer records spans for view resolution, theme selection, resource configuration, components, page
+ * captures by trees and links, and the theme.  Themes and views may add their own spans, such as around
+ * {@link View#doView(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.aoapps.html.servlet.FlowContent, com.semanticcms.core.model.Page)}:</p>
+ *
+ * <pre>try (RenderTrace.Span span = RenderTrace.begin(request, "doView", view.getName())) {
+ *   view.doView(servletContext, request, response, flow, page);
+ * }</pre>
+ *
+ * <p>Spans may be begun by other threads, such as while capturing pages concurrently.  Each thread nests its own
+ * spans.  The first span of a thread other than the request thread is nested under the innermost span then open on
+ * the request thread, and records the name of its thread.</p>
+ *
+ * <p>The traced URI does not include the query string, which may contain personal or secret values.</p>
+ *
+ * <p>When not tracing, {@link #begin(javax.servlet.ServletRequest, java.lang.String, java.lang.Object)} costs a
+ * single request attribute lookup.</p>
+ */
+public final class RenderTrace {
+
+  private static final Logger logger = Logger.getLogger(RenderTrace.class.getName());
+
+  /**
+   * A timed span, ended when closed.
+   */
+  public static final class Span implements AutoCloseable {
+
+    /**
+     * The span returned when not tracing.
+     */
+    private static final Span NONE = new Span(null, null, null, -1, null, null, 0);
+
+    private final RenderTrace trace;
+    private final String name;
+    private Object detail;
+    private final int index;
+    private final Span parent;
+    private final int depth;
+    private final Thread thread;
+    private final long startNanos;
+    private long durationNanos = -1;
+
+    private Span(RenderTrace trace, String name, Object detail, int index, Span parent, Thread thread, long startNanos) {
+      this.trace = trace;
+      this.name = name;
+      this.detail = detail;
+      this.index = index;
+      this.parent = parent;
+      this.depth = (parent == null) ? 0 : (parent.depth + 1);
+      this.thread = thread;
+      this.startNanos = startNanos;
+    }
+
+    /**
+     * Sets the detail of this span, which is converted to a string only when the trace is written.
+     * Useful when the detail is not known until the end of the span.
+     */
+    public void setDetail(Object detail) {
+      if (trace != null) {
+        synchronized (trace) {
+          this.detail = detail;
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      if (trace != null) {
+        trace.end(this);
+      }
+    }
+  }
+
+  private static final ScopeEE.Request.Attribute<RenderTrace> REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(RenderTrace.class.getName());
+
+  /**
+   * Gets the trace active on the given request or {@code null} when not tracing.
+   */
+  static RenderTrace getTrace(ServletRequest request) {
+    return REQUEST_ATTRIBUTE.context(request).get();
+  }
+
+  /**
+   * Sets the trace active on the given request or {@code null} to stop tracing.
+   */
+  static void setTrace(ServletRequest request, RenderTrace trace) {
+    REQUEST_ATTRIBUTE.context(request).set(trace);
+  }
+
+  /**
+   * Checks if the given request is being traced.
+   */
+  public static boolean isTracing(ServletRequest request) {
+    return getTrace(request) != null;
+  }
+
+  /**
+   * Begins a span, which must be closed.  Does nothing when not tracing.
+   *
+   * @param  detail  Converted to a string only when the trace is written, may be {@code null}
+   */
+  public static Span begin(ServletRequest request, String name, Object detail) {
+    RenderTrace trace = getTrace(request);
+    return (trace == null) ? Span.NONE : trace.begin(name, detail);
+  }
+
+  /**
+   * Begins a span without any detail, which must be closed.  Does nothing when not tracing.
+   */
+  public static Span begin(ServletRequest request, String name) {
+    return begin(request, name, null);
+  }
+
+  private final long startMillis;
+  private final long startNanos;
+  private final String method;
+  private final String uri;
+  private final PageRef pageRef;
+
+  /**
+   * All spans in the order begun.
+   */
+  private final List<Span> spans = new ArrayList<>();
+
+  /**
+   * The thread that began the trace.
+   */
+  private final Thread requestThread;
+
+  /**
+   * The currently open spans of each thread, innermost first.  Threads are removed when they have no open spans.
+   */
+  private final Map<Thread, Deque<Span>> open = new HashMap<>();
+
+  private long durationNanos = -1;
+
+  RenderTrace(HttpServletRequest request, PageRef pageRef) {
+    this.startMillis = System.currentTimeMillis();
+    this.startNanos = System.nanoTime();
+    this.method = request.getMethod();
+    // The query string is not traced, since it may contain personal or secret values
+    this.uri = request.getRequestURI();
+    this.pageRef = pageRef;
+    this.requestThread = Thread.currentThread();
+  }
+
+  private synchronized Span begin(String name, Object detail) {
+    Thread thread = Thread.currentThread();
+    Deque<Span> threadOpen = open.get(thread);
+    Span parent;
+    if (threadOpen != null) {
+      parent = threadOpen.peek();
+    } else {
+      threadOpen = new ArrayDeque<>();
+      open.put(thread, threadOpen);
+      // The first span of another thread is nested under the span open on the request thread, which started it
+      Deque<Span> requestOpen = (thread == requestThread) ? null : open.get(requestThread);
+      parent = (requestOpen == null) ? null : requestOpen.peek();
+    }
+    Span span = new Span(this, name, detail, spans.size(), parent, thread, System.nanoTime());
+    spans.add(span);
+    threadOpen.push(span);
+    return span;
+  }
+
+  private synchronized void end(Span span) {
+    if (span.durationNanos == -1) {
+      span.durationNanos = System.nanoTime() - span.startNanos;
+      Deque<Span> threadOpen = open.get(span.thread);
+      if (threadOpen != null) {
+        threadOpen.removeFirstOccurrence(span);
+        if (threadOpen.isEmpty()) {
+          open.remove(span.thread);
+        }
+      }
+    }
+  }
+
+  /**
+   * Ends the trace.
+   */
+  synchronized void end() {
+    if (durationNanos == -1) {
+      durationNanos = System.nanoTime() - startNanos;
+    }
+  }
+
+  /**
+   * Gets the total duration, or {@code -1} when not yet {@linkplain #end() ended}.
+   */
+  synchronized long getDurationNanos() {
+    return durationNanos;
+  }
+
+  private static void appendJsonString(String value, StringBuilder json) {
+    if (value == null) {
+      json.append("null");
+      return;
+    }
+    json.append('"');
+    for (int i = 0, len = value.length(); i < len; i++) {
+      char ch = value.charAt(i);
+      switch (ch) {
+        case '"':
+          json.append("\\\"");
+          break;
+        case '\\':
+          json.append("\\\\");
+          break;
+        case '\n':
+          json.append("\\n");
+          break;
+        case '\r':
+          json.append("\\r");
+          break;
+        case '\t':
+          json.append("\\t");
+          break;
+        default:
+          if (ch < 0x20) {
+            json.append("\\u00");
+            json.append(Character.forDigit(ch >> 4, 16));
+            json.append(Character.forDigit(ch & 0xf, 16));
+          } else {
+            json.append(ch);
+          }
+      }
+    }
+    json.append('"');
+  }
+
+  /**
+   * Formats this trace as a single line of JSON, without the trailing newline.
+   * Spans that have not ended have a duration of {@code -1}.  Each span has the index of its parent span, or
+   * {@code -1} for a top-level span.
+   */
+  synchronized String toJson(int status) {
+    StringBuilder json = new StringBuilder(128 + spans.size() * 96);
+    json.append("{\"time\":");
+    appendJsonString(Instant.ofEpochMilli(startMillis).toString(), json);
+    json.append(",\"method\":");
+    appendJsonString(method, json);
+    json.append(",\"uri\":");
+    appendJsonString(uri, json);
+    json.append(",\"page\":");
+    appendJsonString(pageRef == null ? null : pageRef.toString(), json);
+    json.append(",\"status\":").append(status);
+    json.append(",\"durationNanos\":").append(durationNanos);
+    json.append(",\"spans\":[");
+    for (int i = 0, size = spans.size(); i < size; i++) {
+      Span span = spans.get(i);
+      if (i != 0) {
+        json.append(',');
+      }
+      json.append("{\"name\":");
+      appendJsonString(span.name, json);
+      if (span.detail != null) {
+        json.append(",\"detail\":");
+        appendJsonString(span.detail.toString(), json);
+      }
+      json.append(",\"depth\":").append(span.depth);
+      json.append(",\"parent\":").append(span.parent == null ? -1 : span.parent.index);
+      if (span.thread != requestThread) {
+        json.append(",\"thread\":");
+        appendJsonString(span.thread.getName(), json);
+      }
+      json.append(",\"startNanos\":").append(span.startNanos - startNanos);
+      json.append(",\"durationNanos\":").append(span.durationNanos);
+      json.append('}');
+    }
+    json.append("]}");
+    return json.toString();
+  }
+
+  /**
+   * Appends traces to a file, one line of JSON per trace.
+   */
+  static final class Log {
+
+    private final Path file;
+    private final long thresholdNanos;
+    private Writer out;
+
+    Log(Path file, long thresholdNanos) {
+      this.file = file;
+      this.thresholdNanos = thresholdNanos;
+    }
+
+    /**
+     * Appends the trace when it took at least the threshold.
+     * Any failure is logged and does not affect the request.
+     */
+    void write(RenderTrace trace, int status) {
+      if (trace.getDurationNanos() >= thresholdNanos) {
+        String json = trace.toJson(status);
+        synchronized (this) {
+          try {
+            if (out == null) {
+              out = Files.newBufferedWriter(
+                  file,
+                  StandardCharsets.UTF_8,
+                  StandardOpenOption.CREATE,
+                  StandardOpenOption.APPEND
+              );
+            }
+            out.write(json);
+            out.write('\n');
+            out.flush();
+          } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to write render trace: " + file, e);
+          }
+        }
+      }
+    }
+
+    /**
+     * Closes the file.  It will be re-opened if written again.
+     */
+    synchronized void close() {
+      if (out != null) {
+        try {
+          out.close();
+        } catch (IOException e) {
+          logger.log(Level.WARNING, "Unable to close render trace: " + file, e);
+        }
+        out = null;
+      }
+    }
+  }
+}
@@ -1,6 +1,6 @@
 /*
  * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
- * Copyright (C) 2016, 2017, 2019, 2020, 2021, 2022, 2023, 2024  AO Industries, Inc.
+ * Copyright (C) 2016, 2017, 2019, 2020, 2021, 2022, 2023, 2024, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -28,7 +28,9 @@ import com.aoapps.encoding.Serialization;
 import com.aoapps.servlet.attribute.ScopeEE;
 import com.aoapps.web.resources.registry.Registry;
 import com.semanticcms.core.model.Page;
+import com.semanticcms.core.pages.CaptureLevel;
 import java.io.IOException;
+import java.io.Writer;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
@@ -62,6 +64,51 @@ public abstract class Theme {
     REQUEST_ATTRIBUTE.context(request).set(theme);
   }
 
+  /**
+   * The request-scope attribute that is set when the head may be flushed early.
+   */
+  private static final ScopeEE.Request.Attribute<Boolean> EARLY_FLUSH_REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(Theme.class.getName() + ".earlyFlush");
+
+  /**
+   * Checks if the head may be flushed early on the given request.
+   * This is only allowed when the view {@linkplain View#isEarlyFlushAllowed() allows early flush}
+   * and the page is being streamed directly to the client.
+   *
+   * @see  #flushHead(javax.servlet.ServletRequest, javax.servlet.ServletResponse, java.io.Writer)
+   */
+  public static boolean isEarlyFlush(ServletRequest request) {
+    return Boolean.TRUE.equals(EARLY_FLUSH_REQUEST_ATTRIBUTE.context(request).get());
+  }
+
+  /**
+   * Sets if the head may be flushed early on the given request.
+   */
+  static void setEarlyFlush(ServletRequest request, boolean earlyFlush) {
+    if (earlyFlush) {
+      EARLY_FLUSH_REQUEST_ATTRIBUTE.context(request).set(Boolean.TRUE);
+    } else {
+      EARLY_FLUSH_REQUEST_ATTRIBUTE.context(request).remove();
+    }
+  }
+
+  /**
+   * Flushes the document to the client when {@linkplain #isEarlyFlush(javax.servlet.ServletRequest) early flush} is
+   * allowed, otherwise does nothing.  Themes should call this just after the head closing tag has been written,
+   * which is after the {@link ComponentPosition#HEAD_END} components, registered scripts, and head includes.  The
+   * client may then begin fetching stylesheets and scripts while the view is still being rendered.
+   *
+   * <p>Once flushed, the response is committed and the status and headers may no longer be changed.</p>
+   *
+   * @param  out  The writer the head has been written to, flushed before the response
+   */
+  public static void flushHead(ServletRequest request, ServletResponse response, Writer out) throws IOException {
+    if (isEarlyFlush(request)) {
+      out.flush();
+      response.flushBuffer();
+    }
+  }
+
   /**
    * Two themes with the same name are considered equal.
    */
@@ -109,6 +156,43 @@ public abstract class Theme {
     return HtmlRenderer.DEFAULT_THEME_NAME.equals(getName());
   }
 
+  /**
+   * Gets the level a page must be captured at to be rendered in this theme.
+   * Themes that use the elements of the page, and not only page-level information,
+   * should return {@link CaptureLevel#META}.
+   *
+   * <p><b>Implementation Note:</b><br>
+   * returns {@link CaptureLevel#PAGE} by default</p>
+   *
+   * @see  HtmlRenderer#getCaptureLevel(com.semanticcms.core.renderer.html.View, com.semanticcms.core.renderer.html.Theme)
+   */
+  public CaptureLevel getCaptureLevel() {
+    return CaptureLevel.PAGE;
+  }
+
+  /**
+   * Checks if pages rendered in this theme may be stored in the application-scoped render cache.
+   * Pages are only cached when both the view and the theme are cacheable.
+   *
+   * <p>A theme may only be cacheable when its output depends on nothing more than the page, the view, the theme,
+   * the serialization, the doctype, and whether exporting.  In particular, its output must not depend on any
+   * per-user state.  Requests with parameters other than {@link HtmlRenderer#VIEW_PARAM}, with a session, or with
+   * an authenticated user are never cached.</p>
+   *
+   * <p>Cached pages are only invalidated by a change in the registry or the last modified time of the view, so pages
+   * are only cached when the view is also a {@linkplain View#isLastModifiedValidator() last modified validator}.
+   * Any change to the output of this theme, other than by registration, requires
+   * {@link HtmlRenderer#clearRenderCache()}.</p>
+   *
+   * <p><b>Implementation Note:</b><br>
+   * returns {@code false} by default</p>
+   *
+   * @see  View#isCacheable()
+   */
+  public boolean isCacheable() {
+    return false;
+  }
+
   /**
    * Configures the {@linkplain com.aoapps.web.resources.servlet.RegistryEE.Request request-scope web resources} that this theme uses.
    *
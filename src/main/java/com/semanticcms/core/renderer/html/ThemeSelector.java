@@ -0,0 +1,145 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import java.util.Map;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Selects the theme for a request, overriding the default theme selection.
+ * Selectors are consulted in the order registered, with the first non-null theme used.
+ * When no selector chooses a theme, the {@linkplain HtmlRenderer.Snapshot#getSelectedTheme() default selection}
+ * is used.
+ *
+ * @see  HtmlRenderer#addThemeSelector(com.semanticcms.core.renderer.html.ThemeSelector)
+ */
+@FunctionalInterface
+public interface ThemeSelector {
+
+  /**
+   * Selects the theme for the given request.
+   *
+   * @param  themes  The registered themes, by name, from the same snapshot used for the rest of the request.
+   *
+   * @return  The theme or {@code null} to defer to the next selector
+   */
+  Theme selectTheme(HttpServletRequest request, Map<String, Theme> themes);
+
+  /**
+   * Gets the request header the selection depends on, which is added to the {@code Vary} response header whenever
+   * this selector is consulted.  Responses that vary are never answered with
+   * {@link javax.servlet.http.HttpServletResponse#SC_NOT_MODIFIED}, since the last modified time of the view does
+   * not reflect a change in the selected theme.
+   *
+   * <p><b>Implementation Note:</b><br>
+   * returns {@code null} by default, for a selection that does not depend on the request headers</p>
+   *
+   * @return  The header name or {@code null} when the selection does not depend on the request headers
+   */
+  default String getVary() {
+    return null;
+  }
+
+  /**
+   * Selects the theme by the name in a request attribute, ignoring unknown names.
+   * The attribute may contain either a {@link Theme} or the name of a theme.
+   */
+  public static class RequestAttribute implements ThemeSelector {
+
+    private final String name;
+
+    public RequestAttribute(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Gets the name of the request attribute.
+     */
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public Theme selectTheme(HttpServletRequest request, Map<String, Theme> themes) {
+      Object value = request.getAttribute(name);
+      if (value instanceof Theme) {
+        Theme theme = (Theme) value;
+        // Only allow registered themes
+        return theme.equals(themes.get(theme.getName())) ? theme : null;
+      } else if (value != null) {
+        return themes.get(value.toString());
+      } else {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Selects the theme by the name in a cookie, ignoring unknown names.
+   * Responses vary by the {@code Cookie} header.
+   */
+  public static class CookieValue implements ThemeSelector {
+
+    private static final String COOKIE_HEADER = "Cookie";
+
+    private final String name;
+
+    public CookieValue(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Gets the name of the cookie.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return  {@code "Cookie"}
+     */
+    @Override
+    public String getVary() {
+      return COOKIE_HEADER;
+    }
+
+    @Override
+    public Theme selectTheme(HttpServletRequest request, Map<String, Theme> themes) {
+      Cookie[] cookies = request.getCookies();
+      if (cookies != null) {
+        for (Cookie cookie : cookies) {
+          if (name.equals(cookie.getName())) {
+            Theme theme = themes.get(cookie.getValue());
+            if (theme != null) {
+              return theme;
+            }
+          }
+        }
+      }
+      return null;
+    }
+  }
+}
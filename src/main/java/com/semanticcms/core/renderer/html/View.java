@@ -1,6 +1,6 @@
 /*
  * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
- * Copyright (C) 2016, 2017, 2019, 2020, 2021, 2022, 2024  AO Industries, Inc.
+ * Copyright (C) 2016, 2017, 2019, 2020, 2021, 2022, 2024, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -185,6 +185,20 @@ public abstract class View implements Comparable<View> {
     return true;
   }
 
+  /**
+   * Gets the level a page must be captured at to be rendered in this view.
+   * Views that use the elements of the page, and not only page-level information,
+   * should return {@link CaptureLevel#META}.
+   *
+   * <p><b>Implementation Note:</b><br>
+   * returns {@link CaptureLevel#PAGE} by default</p>
+   *
+   * @see  HtmlRenderer#getCaptureLevel(com.semanticcms.core.renderer.html.View, com.semanticcms.core.renderer.html.Theme)
+   */
+  public CaptureLevel getCaptureLevel() {
+    return CaptureLevel.PAGE;
+  }
+
   /**
    * Gets an id to use for the main navigation link to this view.
    *
@@ -294,6 +308,76 @@ public abstract class View implements Comparable<View> {
     return null;
   }
 
+  /**
+   * Checks if the {@linkplain #getLastModified(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page) last modified time}
+   * of this view is a validator for the entire rendered output, including everything written by the theme.
+   * When {@code true}, the page renderer sends the last modified time in the response and answers conditional
+   * requests ({@code If-Modified-Since}) with {@link HttpServletResponse#SC_NOT_MODIFIED} before any theme
+   * rendering.
+   *
+   * <p>Views should only enable this when the last modified time is cheap to compute and when the output does not
+   * depend on anything newer, such as the state of other pages.</p>
+   *
+   * <p><b>Implementation Note:</b><br>
+   * returns {@code false} by default</p>
+   */
+  public boolean isLastModifiedValidator() {
+    return false;
+  }
+
+  /**
+   * Checks if this view is rendered into a buffer before being sent.  Buffered views send their exact
+   * {@code Content-Length} and support single byte {@code Range} requests, at the cost of nothing being sent until
+   * the entire page has been rendered.
+   *
+   * <p><b>Implementation Note:</b><br>
+   * returns {@code false} by default</p>
+   */
+  public boolean isBuffered() {
+    return false;
+  }
+
+  /**
+   * Checks if the theme may flush the head to the client before this view is rendered.
+   * A view may only allow early flush when it does not set the status or any headers while rendering,
+   * since the response will already be committed.  Errors during rendering can then no longer
+   * be reported with an error status.
+   *
+   * <p>Early flush is not performed when the page is {@linkplain #isBuffered() buffered} or
+   * {@linkplain #isCacheable() cached}.</p>
+   *
+   * <p><b>Implementation Note:</b><br>
+   * returns {@code false} by default</p>
+   *
+   * @see  Theme#flushHead(javax.servlet.ServletRequest, javax.servlet.ServletResponse, java.io.Writer)
+   */
+  public boolean isEarlyFlushAllowed() {
+    return false;
+  }
+
+  /**
+   * Checks if pages rendered in this view may be stored in the application-scoped render cache.
+   * Pages are only cached when both the view and the theme are cacheable.
+   *
+   * <p>A view may only be cacheable when its output depends on nothing more than the page, the view, the theme,
+   * the serialization, the doctype, and whether exporting.  In particular, its output must not depend on any
+   * per-user state.  Requests with parameters other than {@link HtmlRenderer#VIEW_PARAM}, with a session, or with
+   * an authenticated user are never cached.</p>
+   *
+   * <p>Cached pages are only invalidated by a change in the registry or the
+   * {@linkplain #getLastModified(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page) last modified time},
+   * so pages are only cached when this view is also a {@linkplain #isLastModifiedValidator() last modified validator}
+   * and the last modified time is known.  Any other change requires {@link HtmlRenderer#clearRenderCache()}.</p>
+   *
+   * <p><b>Implementation Note:</b><br>
+   * returns {@code false} by default</p>
+   *
+   * @see  Theme#isCacheable()
+   */
+  public boolean isCacheable() {
+    return false;
+  }
+
   /**
    * Gets the copyright information for the view on the given page.
    *
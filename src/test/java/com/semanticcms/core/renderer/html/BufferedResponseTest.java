@@ -0,0 +1,150 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.semanticcms.core.renderer.html.harness.ResponseRecorder;
+import com.semanticcms.core.renderer.html.harness.Servlets;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Test;
+
+/**
+ * Tests the byte range support of {@link BufferedResponse#send(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, byte[], int, long)}.
+ */
+public class BufferedResponseTest {
+
+  private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+  private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+  private final ServletContext servletContext = Servlets.newServletContext();
+
+  private ResponseRecorder send(String method, String range, String ifRange) throws Exception {
+    Map<String, String> headers = new HashMap<>();
+    if (range != null) {
+      headers.put("Range", range);
+    }
+    if (ifRange != null) {
+      headers.put("If-Range", ifRange);
+    }
+    ResponseRecorder recorder = new ResponseRecorder();
+    BufferedResponse.send(
+        Servlets.newRequest(servletContext, method, "/test", Collections.emptyMap(), headers),
+        recorder.getResponse(),
+        CONTENT,
+        CONTENT.length,
+        LAST_MODIFIED
+    );
+    return recorder;
+  }
+
+  private ResponseRecorder send(String range, String ifRange) throws Exception {
+    return send("GET", range, ifRange);
+  }
+
+  private static void assertFull(ResponseRecorder recorder) {
+    assertEquals(HttpServletResponse.SC_OK, recorder.getStatus());
+    assertNull(recorder.getHeader("Content-Range"));
+    assertEquals(Integer.toString(CONTENT.length), recorder.getHeader("Content-Length"));
+    assertEquals("bytes", recorder.getHeader("Accept-Ranges"));
+    assertArrayEquals(CONTENT, recorder.toByteArray());
+  }
+
+  private static void assertPartial(ResponseRecorder recorder, int start, int end) {
+    assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, recorder.getStatus());
+    assertEquals("bytes " + start + '-' + end + '/' + CONTENT.length, recorder.getHeader("Content-Range"));
+    assertEquals(Integer.toString(end - start + 1), recorder.getHeader("Content-Length"));
+    assertArrayEquals(Arrays.copyOfRange(CONTENT, start, end + 1), recorder.toByteArray());
+  }
+
+  private static String formatDate(long millis) {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC).format(Instant.ofEpochMilli(millis));
+  }
+
+  @Test
+  public void testNoRange() throws Exception {
+    assertFull(send(null, null));
+  }
+
+  @Test
+  public void testRange() throws Exception {
+    assertPartial(send("bytes=2-5", null), 2, 5);
+    assertPartial(send("bytes=2-", null), 2, 9);
+    assertPartial(send("bytes=5-100", null), 5, 9);
+  }
+
+  @Test
+  public void testSuffixRange() throws Exception {
+    assertPartial(send("bytes=-3", null), 7, 9);
+    assertPartial(send("bytes=-100", null), 0, 9);
+  }
+
+  @Test
+  public void testUnsatisfiable() throws Exception {
+    for (String range : new String[] {"bytes=10-", "bytes=100-200", "bytes=-0"}) {
+      ResponseRecorder recorder = send(range, null);
+      assertEquals(range, HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, recorder.getStatus());
+      assertEquals(range, "bytes */" + CONTENT.length, recorder.getHeader("Content-Range"));
+      assertEquals(range, "0", recorder.getHeader("Content-Length"));
+      assertEquals(range, 0, recorder.toByteArray().length);
+    }
+  }
+
+  @Test
+  public void testIgnoredRanges() throws Exception {
+    assertFull(send("bytes=0-1,4-5", null));
+    assertFull(send("bytes=5-2", null));
+    assertFull(send("bytes=-", null));
+    assertFull(send("bytes=a-b", null));
+    assertFull(send("items=0-1", null));
+  }
+
+  @Test
+  public void testIfRange() throws Exception {
+    assertPartial(send("bytes=0-1", formatDate(LAST_MODIFIED)), 0, 1);
+    assertFull(send("bytes=0-1", formatDate(LAST_MODIFIED - 1000)));
+    // Entity tags are never matched since none are generated
+    assertFull(send("bytes=0-1", "\"etag\""));
+    assertFull(send("bytes=0-1", "W/\"etag\""));
+  }
+
+  @Test
+  public void testHead() throws Exception {
+    ResponseRecorder recorder = send("HEAD", "bytes=0-1", null);
+    assertEquals("Ranges only for GET", HttpServletResponse.SC_OK, recorder.getStatus());
+    assertEquals(Integer.toString(CONTENT.length), recorder.getHeader("Content-Length"));
+    assertEquals(0, recorder.toByteArray().length);
+  }
+}
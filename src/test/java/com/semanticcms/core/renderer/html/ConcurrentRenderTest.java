@@ -0,0 +1,153 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.semanticcms.core.model.Link;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.renderer.html.harness.InMemoryRenderer;
+import com.semanticcms.core.renderer.html.harness.LoadDriver;
+import com.semanticcms.core.renderer.html.harness.ResponseRecorder;
+import com.semanticcms.core.renderer.html.harness.SimpleTheme;
+import com.semanticcms.core.renderer.html.harness.SimpleView;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.util.Collections;
+import java.util.Map;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Renders a {@link SyntheticBook} through {@link HtmlRenderer} from many threads at once, using the in-process
+ * harness in place of a servlet container.
+ */
+public class ConcurrentRenderTest {
+
+  private static final int PAGES = 200;
+
+  private static final int THREADS = 8;
+
+  /**
+   * Requests each page the same number of times from {@link #THREADS} threads as from one.
+   */
+  private static final int REQUESTS_PER_THREAD = PAGES / 2;
+
+  private static final String CACHED_VIEW_NAME = "cached";
+
+  /**
+   * The last modified time of the cached view, which is only cached when it is a last modified validator.
+   */
+  private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+  private static final Map<String, String> CACHED_VIEW_PARAMETERS =
+      Collections.singletonMap(HtmlRenderer.VIEW_PARAM, CACHED_VIEW_NAME);
+
+  private static SyntheticBook book;
+  private static ServletContext servletContext;
+  private static InMemoryRenderer renderer;
+
+  @BeforeClass
+  public static void setUpClass() {
+    book = new SyntheticBook(PAGES, 5, 4, 3, 0);
+    servletContext = InMemoryRenderer.newServletContext(book.getPages());
+    renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+    renderer.addView(new SimpleView(Link.DEFAULT_VIEW_NAME, "Content", false));
+    renderer.addView(new SimpleView(CACHED_VIEW_NAME, "Cached", true, LAST_MODIFIED));
+    renderer.addTheme(new SimpleTheme(HtmlRenderer.DEFAULT_THEME_NAME, "Simple", true));
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    if (renderer != null) {
+      renderer.uninstall();
+      renderer = null;
+    }
+    servletContext = null;
+    book = null;
+  }
+
+  private static LoadDriver newDriver(Map<String, String> parameters) {
+    return new LoadDriver(servletContext, renderer, book.getPages().values(), parameters);
+  }
+
+  private static String render(Map<String, String> parameters, Page page) throws Exception {
+    ResponseRecorder recorder = new ResponseRecorder();
+    newDriver(parameters).render(page, recorder.getResponse());
+    assertEquals(HttpServletResponse.SC_OK, recorder.getStatus());
+    return recorder.toString();
+  }
+
+  private static void assertNoErrors(LoadDriver.Result result, long expectedRequests) {
+    Throwable firstError = result.getFirstError();
+    if (firstError != null) {
+      throw new AssertionError("Render failed: " + result, firstError);
+    }
+    assertEquals(result.toString(), 0, result.getErrors());
+    assertEquals(result.toString(), expectedRequests, result.getRequests());
+    assertTrue(result.toString(), result.getBytes() > 0);
+  }
+
+  /**
+   * Renders every page the same number of times on one thread then on {@link #THREADS} threads, expecting no errors
+   * and the same total output.
+   */
+  private static void testConcurrent(Map<String, String> parameters) throws Exception {
+    LoadDriver driver = newDriver(parameters);
+    LoadDriver.Result sequential = driver.run(1, THREADS * REQUESTS_PER_THREAD);
+    assertNoErrors(sequential, THREADS * REQUESTS_PER_THREAD);
+    LoadDriver.Result concurrent = driver.run(THREADS, REQUESTS_PER_THREAD);
+    assertNoErrors(concurrent, THREADS * REQUESTS_PER_THREAD);
+    assertEquals(sequential.getBytes(), concurrent.getBytes());
+  }
+
+  @Test
+  public void testRenderDefaultView() throws Exception {
+    Page root = book.getRoot();
+    String body = render(Collections.emptyMap(), root);
+    assertTrue(body, body.contains("<title>Content - " + root.getTitle() + "</title>"));
+    assertTrue(body, body.contains("<h1>" + root.getTitle() + "</h1>"));
+  }
+
+  @Test
+  public void testRenderCachedView() throws Exception {
+    Page root = book.getRoot();
+    String body = render(CACHED_VIEW_PARAMETERS, root);
+    assertTrue(body, body.contains("<title>Cached - " + root.getTitle() + "</title>"));
+    assertTrue(body, body.contains("<h1>" + root.getTitle() + "</h1>"));
+    assertEquals("Served from the render cache unchanged", body, render(CACHED_VIEW_PARAMETERS, root));
+  }
+
+  @Test
+  public void testConcurrentDefaultView() throws Exception {
+    testConcurrent(Collections.emptyMap());
+  }
+
+  @Test
+  public void testConcurrentCachedView() throws Exception {
+    testConcurrent(CACHED_VIEW_PARAMETERS);
+  }
+}
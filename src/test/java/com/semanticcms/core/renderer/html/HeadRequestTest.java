@@ -0,0 +1,116 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import static org.junit.Assert.assertEquals;
+
+import com.semanticcms.core.model.Link;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.renderer.html.harness.InMemoryRenderer;
+import com.semanticcms.core.renderer.html.harness.LoadDriver;
+import com.semanticcms.core.renderer.html.harness.ResponseRecorder;
+import com.semanticcms.core.renderer.html.harness.Servlets;
+import com.semanticcms.core.renderer.html.harness.SimpleTheme;
+import com.semanticcms.core.renderer.html.harness.SimpleView;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.util.Collections;
+import java.util.Map;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code HEAD} requests send the same headers as {@code GET}, without a body.
+ */
+public class HeadRequestTest {
+
+  private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+  private static final String CACHED_VIEW_NAME = "cached";
+
+  private SyntheticBook book;
+  private ServletContext servletContext;
+  private InMemoryRenderer renderer;
+
+  @Before
+  public void setUp() {
+    book = new SyntheticBook(10, 3, 3, 1, 0);
+    servletContext = InMemoryRenderer.newServletContext(book.getPages());
+    renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+    renderer.addView(new SimpleView(Link.DEFAULT_VIEW_NAME, "Content", false));
+    renderer.addView(new SimpleView(CACHED_VIEW_NAME, "Cached", true, LAST_MODIFIED));
+    renderer.addTheme(new SimpleTheme(HtmlRenderer.DEFAULT_THEME_NAME, "Simple", true));
+  }
+
+  @After
+  public void tearDown() {
+    renderer.uninstall();
+  }
+
+  private ResponseRecorder render(String method, Map<String, String> parameters) throws Exception {
+    Page root = book.getRoot();
+    PageRef pageRef = root.getPageRef();
+    ResponseRecorder recorder = new ResponseRecorder();
+    new LoadDriver(servletContext, renderer, Collections.singleton(root), parameters).render(
+        root,
+        Servlets.newRequest(servletContext, method, pageRef.getBookRef().getPrefix() + pageRef.getPath(), parameters, Collections.emptyMap()),
+        recorder.getResponse()
+    );
+    assertEquals(HttpServletResponse.SC_OK, recorder.getStatus());
+    return recorder;
+  }
+
+  private static void assertHeadMatches(ResponseRecorder get, ResponseRecorder head) {
+    assertEquals("No body", 0, head.toByteArray().length);
+    assertEquals(Integer.toString(get.toByteArray().length), get.getHeader("Content-Length"));
+    assertEquals(get.getHeader("Content-Length"), head.getHeader("Content-Length"));
+    assertEquals(get.getHeader("Last-Modified"), head.getHeader("Last-Modified"));
+    assertEquals(get.getHeader("Accept-Ranges"), head.getHeader("Accept-Ranges"));
+    assertEquals(get.getContentType(), head.getContentType());
+  }
+
+  @Test
+  public void testHeadStreamingView() throws Exception {
+    ResponseRecorder head = render("HEAD", Collections.emptyMap());
+    ResponseRecorder get = render("GET", Collections.emptyMap());
+    // Streaming views are buffered for HEAD so the length is known
+    assertHeadMatches(get, head);
+    assertEquals("Not cacheable", 0, ((HtmlRenderer) renderer).getRenderCache().size());
+  }
+
+  @Test
+  public void testHeadMissPopulatesRenderCache() throws Exception {
+    Map<String, String> parameters = Collections.singletonMap(HtmlRenderer.VIEW_PARAM, CACHED_VIEW_NAME);
+    RenderCache renderCache = ((HtmlRenderer) renderer).getRenderCache();
+    // Rendered in full on a miss, then cached
+    ResponseRecorder headMiss = render("HEAD", parameters);
+    assertEquals(1, renderCache.size());
+    ResponseRecorder get = render("GET", parameters);
+    assertEquals("GET served from the entry cached by HEAD", 1, renderCache.size());
+    assertHeadMatches(get, headMiss);
+    assertHeadMatches(get, render("HEAD", parameters));
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.semanticcms.core.renderer.html.harness.InMemoryRenderer;
+import com.semanticcms.core.renderer.html.harness.Servlets;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.util.Collections;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+
+/**
+ * Tests selecting the {@link HtmlRenderer} subclass by {@link HtmlRenderer#IMPLEMENTATION_INIT_PARAM}.
+ */
+public class ImplementationTest {
+
+  /**
+   * Not selectable, since abstract.
+   */
+  public abstract static class AbstractRenderer extends HtmlRenderer {
+    public AbstractRenderer(ServletContext servletContext) {
+      super(servletContext);
+    }
+  }
+
+  /**
+   * Not selectable, since missing the constructor taking the {@link ServletContext}.
+   */
+  public static class NoServletContextConstructor extends HtmlRenderer {
+    public NoServletContextConstructor() {
+      super(null);
+    }
+  }
+
+  /**
+   * Expects initialization to fail with a message naming the context-param, the class, and the reason.
+   */
+  private static void assertInvalid(String className, String reason) {
+    ServletContext servletContext = Servlets.newServletContext(
+        Collections.singletonMap(HtmlRenderer.IMPLEMENTATION_INIT_PARAM, className)
+    );
+    try {
+      HtmlRenderer.getInstance(servletContext);
+      fail("Expected IllegalArgumentException: " + className);
+    } catch (IllegalArgumentException e) {
+      String message = e.getMessage();
+      assertTrue(message, message.startsWith(HtmlRenderer.IMPLEMENTATION_INIT_PARAM + ' '));
+      assertTrue(message, message.contains(reason));
+      assertTrue(message, message.endsWith(": " + className));
+    }
+  }
+
+  @Test
+  public void testClassNotFound() {
+    assertInvalid("com.example.MissingRenderer", "class not found");
+  }
+
+  @Test
+  public void testNotSubclass() {
+    assertInvalid(String.class.getName(), "is not a subclass of " + HtmlRenderer.class.getName());
+  }
+
+  @Test
+  public void testAbstract() {
+    assertInvalid(AbstractRenderer.class.getName(), "is abstract");
+  }
+
+  @Test
+  public void testNoServletContextConstructor() {
+    assertInvalid(NoServletContextConstructor.class.getName(), "has no public constructor taking " + ServletContext.class.getName());
+  }
+
+  @Test
+  public void testConstructorException() {
+    // Pages not set in the context
+    ServletContext servletContext = Servlets.newServletContext(
+        Collections.singletonMap(HtmlRenderer.IMPLEMENTATION_INIT_PARAM, InMemoryRenderer.class.getName())
+    );
+    try {
+      HtmlRenderer.getInstance(servletContext);
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      assertEquals("Pages not set, use InMemoryRenderer.newServletContext", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testImplementation() {
+    ServletContext servletContext = InMemoryRenderer.newServletContext(new SyntheticBook(1, 1, 1, 1, 0).getPages());
+    InMemoryRenderer renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+    try {
+      assertSame(renderer, HtmlRenderer.getInstance(servletContext));
+    } finally {
+      renderer.uninstall();
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.renderer.html.harness.InMemoryRenderer;
+import com.semanticcms.core.renderer.html.harness.ResponseRecorder;
+import com.semanticcms.core.renderer.html.harness.Servlets;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+
+/**
+ * Hits and invalidation of {@link PageIndexCache}.
+ */
+public class PageIndexCacheTest {
+
+  private static final SyntheticBook book = new SyntheticBook(20, 3, 3, 1, 0);
+
+  private static PageIndex newPageIndex() {
+    return new PageIndex(book.getRoot(), new ArrayList<>(book.getPages().values()));
+  }
+
+  private static PageRef getPageRef(int index) {
+    List<PageRef> pageRefs = new ArrayList<>(book.getPages().keySet());
+    return pageRefs.get(index);
+  }
+
+  @Test
+  public void testDisabled() {
+    assertFalse(new PageIndexCache(0, 0).isEnabled());
+    assertTrue(new PageIndexCache(1, 0).isEnabled());
+  }
+
+  @Test
+  public void testHitAndVersion() {
+    PageIndexCache cache = new PageIndexCache(4, 0);
+    PageRef rootRef = book.getRoot().getPageRef();
+    assertNull(cache.get(rootRef, 1));
+    PageIndex pageIndex = newPageIndex();
+    cache.put(rootRef, 1, cache.getGeneration(), pageIndex);
+    assertSame(pageIndex, cache.get(rootRef, 1));
+    assertSame(pageIndex, cache.get(rootRef, 1));
+    assertNull("Invalidated by version", cache.get(rootRef, 2));
+    assertNull("Stale entry removed", cache.get(rootRef, 1));
+  }
+
+  @Test
+  public void testClear() {
+    PageIndexCache cache = new PageIndexCache(4, 0);
+    PageRef rootRef = book.getRoot().getPageRef();
+    cache.put(rootRef, 1, cache.getGeneration(), newPageIndex());
+    long generation = cache.getGeneration();
+    cache.clear();
+    assertNull(cache.get(rootRef, 1));
+    cache.put(rootRef, 1, generation, newPageIndex());
+    assertNull("Built before clear, not added", cache.get(rootRef, 1));
+  }
+
+  @Test
+  public void testMaxAge() throws InterruptedException {
+    PageIndexCache cache = new PageIndexCache(4, TimeUnit.MILLISECONDS.toNanos(10));
+    PageRef rootRef = book.getRoot().getPageRef();
+    PageIndex pageIndex = newPageIndex();
+    cache.put(rootRef, 1, cache.getGeneration(), pageIndex);
+    assertSame(pageIndex, cache.get(rootRef, 1));
+    Thread.sleep(20);
+    assertNull("Expired", cache.get(rootRef, 1));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() throws InterruptedException {
+    PageIndexCache cache = new PageIndexCache(2, 0);
+    Map<PageRef, PageIndex> added = new HashMap<>();
+    for (int i = 0; i < 2; i++) {
+      PageIndex pageIndex = newPageIndex();
+      cache.put(getPageRef(i), 1, cache.getGeneration(), pageIndex);
+      added.put(getPageRef(i), pageIndex);
+      Thread.sleep(1);
+    }
+    // Use the first, so the second is least recently used
+    assertSame(added.get(getPageRef(0)), cache.get(getPageRef(0), 1));
+    Thread.sleep(1);
+    cache.put(getPageRef(2), 1, cache.getGeneration(), newPageIndex());
+    assertSame(added.get(getPageRef(0)), cache.get(getPageRef(0), 1));
+    assertNull(cache.get(getPageRef(1), 1));
+    assertNotNull(cache.get(getPageRef(2), 1));
+  }
+
+  /**
+   * Builds page indexes through {@link PageIndex#getPageIndex(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.PageRef)},
+   * which captures concurrently so does not require {@link com.semanticcms.core.controller.SemanticCMS}.
+   */
+  @Test
+  public void testGetPageIndex() throws Exception {
+    ServletContext servletContext = InMemoryRenderer.newServletContext(
+        book.getPages(),
+        Collections.singletonMap(HtmlRenderer.PAGE_INDEX_THREADS_INIT_PARAM, "2")
+    );
+    InMemoryRenderer renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+    try {
+      Page root = book.getRoot();
+      PageRef rootRef = root.getPageRef();
+      String servletPath = rootRef.getBookRef().getPrefix() + rootRef.getPath();
+      PageIndex first = PageIndex.getPageIndex(
+          servletContext,
+          Servlets.newRequest(servletContext, servletPath),
+          new ResponseRecorder().getResponse(),
+          rootRef
+      );
+      PageIndex second = PageIndex.getPageIndex(
+          servletContext,
+          Servlets.newRequest(servletContext, servletPath),
+          new ResponseRecorder().getResponse(),
+          rootRef
+      );
+      assertSame("Shared across requests", first, second);
+      renderer.clearPageIndexCache();
+      PageIndex third = PageIndex.getPageIndex(
+          servletContext,
+          Servlets.newRequest(servletContext, servletPath),
+          new ResponseRecorder().getResponse(),
+          rootRef
+      );
+      assertNotSame("Rebuilt after clear", first, third);
+      assertEquals(book.getPages().size(), third.getPageList().size());
+    } finally {
+      renderer.uninstall();
+    }
+  }
+}
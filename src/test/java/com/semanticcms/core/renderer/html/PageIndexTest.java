@@ -0,0 +1,186 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.semanticcms.core.model.ChildRef;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.pages.CaptureLevel;
+import com.semanticcms.core.renderer.html.harness.InMemoryRenderer;
+import com.semanticcms.core.renderer.html.harness.ResponseRecorder;
+import com.semanticcms.core.renderer.html.harness.Servlets;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Streams a combined view of a {@link SyntheticBook} through {@link PageIndex}, using the in-process harness in place
+ * of a servlet container.
+ */
+public class PageIndexTest {
+
+  private static SyntheticBook book;
+  private static ServletContext servletContext;
+  private static InMemoryRenderer renderer;
+
+  @BeforeClass
+  public static void setUpClass() {
+    book = new SyntheticBook(50, 5, 3, 3, 0);
+    servletContext = InMemoryRenderer.newServletContext(book.getPages());
+    renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    if (renderer != null) {
+      renderer.uninstall();
+      renderer = null;
+    }
+    servletContext = null;
+    book = null;
+  }
+
+  /**
+   * Gets the pages with the root first, as captured by a page index.
+   */
+  private static List<Page> getPageList() {
+    Page root = book.getRoot();
+    List<Page> pageList = new ArrayList<>(book.getPages().size());
+    pageList.add(root);
+    for (Page page : book.getPages().values()) {
+      if (page != root) {
+        pageList.add(page);
+      }
+    }
+    return pageList;
+  }
+
+  @Test
+  public void testWritePages() throws Exception {
+    List<Page> pageList = getPageList();
+    PageIndex pageIndex = new PageIndex(book.getRoot(), pageList);
+    PageRef rootRef = book.getRoot().getPageRef();
+    HttpServletRequest request = Servlets.newRequest(servletContext, rootRef.getBookRef().getPrefix() + rootRef.getPath());
+    Theme.setEarlyFlush(request, true);
+    ResponseRecorder recorder = new ResponseRecorder();
+    PrintWriter out = recorder.getResponse().getWriter();
+    List<PageRef> written = new ArrayList<>();
+    StringBuilder expected = new StringBuilder();
+    pageIndex.writePages(servletContext, request, recorder.getResponse(), CaptureLevel.BODY, out, (index, page) -> {
+      assertEquals(written.size(), index);
+      assertEquals(pageList.get(index).getPageRef(), page.getPageRef());
+      assertEquals("Flushed after each page", index > 0, recorder.isCommitted());
+      written.add(page.getPageRef());
+      out.append(page.getTitle()).append('\n');
+      expected.append(page.getTitle()).append('\n');
+    });
+    assertEquals(pageList.size(), written.size());
+    assertEquals(expected.toString(), recorder.toString());
+    assertTrue(
+        "Pages not retained in the request capture cache",
+        InMemoryRenderer.getCaptured(request).isEmpty()
+    );
+  }
+
+  @Test
+  public void testWritePagesWithoutEarlyFlush() throws Exception {
+    List<Page> pageList = getPageList();
+    PageIndex pageIndex = new PageIndex(book.getRoot(), pageList);
+    PageRef rootRef = book.getRoot().getPageRef();
+    HttpServletRequest request = Servlets.newRequest(servletContext, rootRef.getBookRef().getPrefix() + rootRef.getPath());
+    ResponseRecorder recorder = new ResponseRecorder();
+    PrintWriter out = recorder.getResponse().getWriter();
+    pageIndex.writePages(servletContext, request, recorder.getResponse(), CaptureLevel.BODY, out, (index, page) -> {
+      out.append(page.getTitle()).append('\n');
+    });
+    assertFalse(recorder.isCommitted());
+    assertEquals(pageList.size(), recorder.toString().split("\n").length);
+  }
+
+  /**
+   * The order of {@link com.semanticcms.core.controller.PageDags#convertPageDagToList(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.semanticcms.core.pages.CaptureLevel)}:
+   * depth-first, children in order, each page once.
+   */
+  private static void addDepthFirst(Map<PageRef, Page> pages, Page page, Set<PageRef> visited, List<Page> pageList) {
+    if (visited.add(page.getPageRef())) {
+      pageList.add(page);
+      for (ChildRef childRef : page.getChildRefs()) {
+        addDepthFirst(pages, pages.get(childRef.getPageRef()), visited, pageList);
+      }
+    }
+  }
+
+  @Test
+  public void testConvertPageDagToListConcurrent() throws Exception {
+    SyntheticBook sharedBook = new SyntheticBook(500, 5, 5, 1, 0);
+    Map<PageRef, Page> pages = sharedBook.getPages();
+    assertTrue(
+        "Has shared children",
+        pages.values().stream().anyMatch(page -> page.getParentRefs().size() > 1)
+    );
+    List<Page> expected = new ArrayList<>(pages.size());
+    addDepthFirst(pages, sharedBook.getRoot(), new HashSet<>(), expected);
+    assertEquals(pages.size(), expected.size());
+    ServletContext concurrentContext = InMemoryRenderer.newServletContext(
+        pages,
+        Collections.singletonMap(HtmlRenderer.PAGE_INDEX_THREADS_INIT_PARAM, "4")
+    );
+    InMemoryRenderer concurrentRenderer = InMemoryRenderer.getInMemoryInstance(concurrentContext);
+    try {
+      assertEquals(4, concurrentRenderer.getPageIndexThreads());
+      PageRef rootRef = sharedBook.getRoot().getPageRef();
+      for (int i = 0; i < 10; i++) {
+        HttpServletRequest request = Servlets.newRequest(concurrentContext, rootRef.getBookRef().getPrefix() + rootRef.getPath());
+        List<Page> pageList = PageIndex.convertPageDagToList(
+            concurrentContext,
+            request,
+            new ResponseRecorder().getResponse(),
+            concurrentRenderer,
+            sharedBook.getRoot(),
+            CaptureLevel.PAGE
+        );
+        assertEquals(expected, pageList);
+        assertTrue(
+            "Captured on isolated requests, not in the request capture cache",
+            InMemoryRenderer.getCaptured(request).isEmpty()
+        );
+      }
+    } finally {
+      concurrentRenderer.uninstall();
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.semanticcms.core.model.Link;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.renderer.html.harness.InMemoryRenderer;
+import com.semanticcms.core.renderer.html.harness.LoadDriver;
+import com.semanticcms.core.renderer.html.harness.ResponseRecorder;
+import com.semanticcms.core.renderer.html.harness.Servlets;
+import com.semanticcms.core.renderer.html.harness.SimpleTheme;
+import com.semanticcms.core.renderer.html.harness.SimpleView;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@code Link: rel=preload} headers and {@code 103 Early Hints}, using the harness response, which
+ * records early hints as a container that supports them.
+ */
+public class PreloadTest {
+
+  private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+  private static final String CACHED_VIEW_NAME = "cached";
+
+  private static final List<String> LINKS = Arrays.asList(
+      '<' + Servlets.CONTEXT_PATH + "/first.js>; rel=preload; as=script",
+      '<' + Servlets.CONTEXT_PATH + "/second.js>; rel=preload; as=script"
+  );
+
+  private SyntheticBook book;
+  private ServletContext servletContext;
+  private InMemoryRenderer renderer;
+
+  @Before
+  public void setUp() {
+    book = new SyntheticBook(10, 3, 3, 1, 0);
+    Map<String, String> initParameters = new HashMap<>();
+    initParameters.put(HtmlRenderer.PRELOAD_INIT_PARAM, "true");
+    initParameters.put(HtmlRenderer.EARLY_HINTS_INIT_PARAM, "true");
+    servletContext = InMemoryRenderer.newServletContext(book.getPages(), initParameters);
+    renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+    renderer.addView(new SimpleView(Link.DEFAULT_VIEW_NAME, "Content", false));
+    renderer.addView(new SimpleView(CACHED_VIEW_NAME, "Cached", true, LAST_MODIFIED));
+    renderer.addTheme(new SimpleTheme(HtmlRenderer.DEFAULT_THEME_NAME, "Simple", true));
+    renderer.addScript("first", "/first.js");
+    renderer.addScript("second", "/second.js");
+  }
+
+  @After
+  public void tearDown() {
+    renderer.uninstall();
+  }
+
+  private ResponseRecorder render(Map<String, String> parameters) throws Exception {
+    Page root = book.getRoot();
+    PageRef pageRef = root.getPageRef();
+    ResponseRecorder recorder = new ResponseRecorder();
+    new LoadDriver(servletContext, renderer, Collections.singleton(root), parameters).render(
+        root,
+        Servlets.newRequest(servletContext, "GET", pageRef.getBookRef().getPrefix() + pageRef.getPath(), parameters, Collections.emptyMap()),
+        recorder.getResponse()
+    );
+    assertEquals(HttpServletResponse.SC_OK, recorder.getStatus());
+    assertTrue("Rendered after early hints", recorder.toByteArray().length > 0);
+    return recorder;
+  }
+
+  @Test
+  public void testEarlyHints() throws Exception {
+    ResponseRecorder recorder = render(Collections.emptyMap());
+    assertEquals(LINKS, new ArrayList<>(recorder.getHeaders("Link")));
+    assertEquals(Collections.singletonList(LINKS), recorder.getEarlyHints());
+  }
+
+  @Test
+  public void testRenderCacheHit() throws Exception {
+    Map<String, String> parameters = Collections.singletonMap(HtmlRenderer.VIEW_PARAM, CACHED_VIEW_NAME);
+    ResponseRecorder miss = render(parameters);
+    assertEquals(LINKS, new ArrayList<>(miss.getHeaders("Link")));
+    assertEquals(Collections.singletonList(LINKS), miss.getEarlyHints());
+    ResponseRecorder hit = render(parameters);
+    assertEquals("Preload headers sent from the render cache", LINKS, new ArrayList<>(hit.getHeaders("Link")));
+    assertEquals("No early hints for cached pages", Collections.emptyList(), hit.getEarlyHints());
+  }
+}
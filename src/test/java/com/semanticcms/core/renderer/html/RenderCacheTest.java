@@ -0,0 +1,227 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.aoapps.encoding.Doctype;
+import com.aoapps.encoding.Serialization;
+import com.semanticcms.core.model.Link;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.renderer.html.harness.InMemoryRenderer;
+import com.semanticcms.core.renderer.html.harness.LoadDriver;
+import com.semanticcms.core.renderer.html.harness.ResponseRecorder;
+import com.semanticcms.core.renderer.html.harness.Servlets;
+import com.semanticcms.core.renderer.html.harness.SimpleTheme;
+import com.semanticcms.core.renderer.html.harness.SimpleView;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Test;
+
+/**
+ * Tests {@link RenderCache} directly and through {@link HtmlRenderer}.
+ */
+public class RenderCacheTest {
+
+  private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+  private static final String CACHED_VIEW_NAME = "cached";
+
+  private final SyntheticBook book = new SyntheticBook(10, 3, 3, 1, 0);
+
+  private final View view = new SimpleView(CACHED_VIEW_NAME, "Cached", true, LAST_MODIFIED);
+
+  private final Theme theme = new SimpleTheme(HtmlRenderer.DEFAULT_THEME_NAME, "Simple", true);
+
+  private RenderCache.Key newKey(String serverName, Page page) {
+    return new RenderCache.Key("http", serverName, 80, page.getPageRef(), view, theme, Serialization.SGML, Doctype.HTML5, false);
+  }
+
+  /**
+   * Creates an entry of the given size, with random bytes so no smaller compressed variants are stored.
+   */
+  private static RenderCache.Entry newEntry(int size) {
+    byte[] bytes = new byte[size];
+    new Random(size).nextBytes(bytes);
+    return new RenderCache.Entry(0, LAST_MODIFIED, "text/html", Collections.emptyMap(), Collections.emptyMap(), bytes);
+  }
+
+  @Test
+  public void testKeyIncludesHost() {
+    Page root = book.getRoot();
+    assertEquals(newKey("localhost", root), newKey("localhost", root));
+    assertNotEquals(newKey("localhost", root), newKey("example.com", root));
+    RenderCache renderCache = new RenderCache(4096);
+    renderCache.put(newKey("localhost", root), newEntry(100));
+    assertNotNull(renderCache.get(newKey("localhost", root), 0, LAST_MODIFIED));
+    assertNull(renderCache.get(newKey("example.com", root), 0, LAST_MODIFIED));
+  }
+
+  @Test
+  public void testStaleRemoved() {
+    RenderCache renderCache = new RenderCache(4096);
+    RenderCache.Key key = newKey("localhost", book.getRoot());
+    renderCache.put(key, newEntry(100));
+    assertNull("Registry version changed", renderCache.get(key, 1, LAST_MODIFIED));
+    assertEquals(0, renderCache.size());
+    renderCache.put(key, newEntry(100));
+    assertNull("Last modified changed", renderCache.get(key, 0, LAST_MODIFIED + 1000));
+    assertEquals(0, renderCache.size());
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    List<Page> pages = new ArrayList<>(book.getPages().values());
+    // Up to four entries of the maximum size
+    RenderCache renderCache = new RenderCache(4000);
+    for (int i = 0; i < 4; i++) {
+      renderCache.put(newKey("localhost", pages.get(i)), newEntry(1000));
+    }
+    assertEquals(4, renderCache.size());
+    // Access the first, making the second the least recently used
+    assertNotNull(renderCache.get(newKey("localhost", pages.get(0)), 0, LAST_MODIFIED));
+    renderCache.put(newKey("localhost", pages.get(4)), newEntry(1000));
+    assertEquals(4, renderCache.size());
+    assertNull(renderCache.get(newKey("localhost", pages.get(1)), 0, LAST_MODIFIED));
+    assertNotNull(renderCache.get(newKey("localhost", pages.get(0)), 0, LAST_MODIFIED));
+    assertNotNull(renderCache.get(newKey("localhost", pages.get(4)), 0, LAST_MODIFIED));
+    // Larger than the per-entry limit
+    renderCache.put(newKey("localhost", pages.get(5)), newEntry(1001));
+    assertNull(renderCache.get(newKey("localhost", pages.get(5)), 0, LAST_MODIFIED));
+    renderCache.clear();
+    assertEquals(0, renderCache.size());
+  }
+
+  @Test
+  public void testNegotiate() {
+    assertNull(RenderCache.negotiate(null, true, true));
+    assertNull(RenderCache.negotiate("", true, true));
+    assertEquals("gzip", RenderCache.negotiate("gzip", true, true));
+    assertEquals("gzip", RenderCache.negotiate("x-gzip", true, true));
+    assertEquals("gzip", RenderCache.negotiate("deflate, gzip", true, true));
+    assertEquals("deflate", RenderCache.negotiate("deflate", true, true));
+    assertEquals("deflate", RenderCache.negotiate("gzip;q=0.5, deflate", true, true));
+    assertEquals("gzip", RenderCache.negotiate("GZIP; Q=0.8, deflate;q=0.8", true, true));
+    assertNull("Variant not available", RenderCache.negotiate("gzip", false, true));
+    assertEquals("deflate", RenderCache.negotiate("gzip, deflate", false, true));
+  }
+
+  @Test
+  public void testNegotiateRefused() {
+    assertNull(RenderCache.negotiate("gzip;q=0", true, true));
+    assertEquals("deflate", RenderCache.negotiate("gzip;q=0, deflate", true, true));
+    assertNull(RenderCache.negotiate("*;q=0", true, true));
+    assertEquals("Explicit gzip overrides *", "gzip", RenderCache.negotiate("gzip, *;q=0", true, true));
+    assertNull("Invalid quality treated as refused", RenderCache.negotiate("gzip;q=x", true, false));
+  }
+
+  @Test
+  public void testNegotiateIdentity() {
+    assertNull(RenderCache.negotiate("identity", true, true));
+    assertNull(RenderCache.negotiate("identity, br", true, true));
+    assertEquals("gzip", RenderCache.negotiate("identity;q=0.5, *", true, true));
+  }
+
+  /**
+   * Sends the precompressed variant of a compressible page.
+   */
+  @Test
+  public void testSendCompressed() throws Exception {
+    byte[] bytes = new byte[4096];
+    RenderCache.Entry entry = new RenderCache.Entry(0, LAST_MODIFIED, "text/html", Collections.emptyMap(), Collections.emptyMap(), bytes);
+    ServletContext servletContext = Servlets.newServletContext();
+    ResponseRecorder gzip = new ResponseRecorder();
+    entry.send(
+        Servlets.newRequest(servletContext, "GET", "/test", Collections.emptyMap(), Collections.singletonMap("Accept-Encoding", "gzip")),
+        gzip.getResponse()
+    );
+    assertEquals("gzip", gzip.getHeader("Content-Encoding"));
+    assertEquals(Collections.singletonList("Accept-Encoding"), new ArrayList<>(gzip.getHeaders("Vary")));
+    assertEquals(Integer.toString(gzip.toByteArray().length), gzip.getHeader("Content-Length"));
+    assertTrue(gzip.toByteArray().length < bytes.length);
+    ResponseRecorder identity = new ResponseRecorder();
+    entry.send(
+        Servlets.newRequest(servletContext, "GET", "/test", Collections.emptyMap(), Collections.singletonMap("Accept-Encoding", "identity")),
+        identity.getResponse()
+    );
+    assertNull(identity.getHeader("Content-Encoding"));
+    assertEquals(Collections.singletonList("Accept-Encoding"), new ArrayList<>(identity.getHeaders("Vary")));
+    assertArrayEquals(bytes, identity.toByteArray());
+  }
+
+  private static ResponseRecorder render(ServletContext servletContext, InMemoryRenderer renderer, Page page) throws Exception {
+    Map<String, String> parameters = Collections.singletonMap(HtmlRenderer.VIEW_PARAM, CACHED_VIEW_NAME);
+    PageRef pageRef = page.getPageRef();
+    ResponseRecorder recorder = new ResponseRecorder();
+    new LoadDriver(servletContext, renderer, Collections.singleton(page), parameters).render(
+        page,
+        Servlets.newRequest(servletContext, "GET", pageRef.getBookRef().getPrefix() + pageRef.getPath(), parameters, Collections.emptyMap()),
+        recorder.getResponse()
+    );
+    assertEquals(HttpServletResponse.SC_OK, recorder.getStatus());
+    return recorder;
+  }
+
+  /**
+   * The headers set while rendering a miss, including the preload headers, are sent again on each hit.
+   */
+  @Test
+  public void testHitSendsSameHeaders() throws Exception {
+    ServletContext servletContext = InMemoryRenderer.newServletContext(
+        book.getPages(),
+        Collections.singletonMap(HtmlRenderer.PRELOAD_INIT_PARAM, "true")
+    );
+    InMemoryRenderer renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+    try {
+      renderer.addView(new SimpleView(Link.DEFAULT_VIEW_NAME, "Content", false));
+      renderer.addView(view);
+      renderer.addTheme(theme);
+      renderer.addScript("test", "/test.js");
+      Page root = book.getRoot();
+      ResponseRecorder miss = render(servletContext, renderer, root);
+      assertEquals(1, ((HtmlRenderer) renderer).getRenderCache().size());
+      ResponseRecorder hit = render(servletContext, renderer, root);
+      List<String> links = new ArrayList<>(miss.getHeaders("Link"));
+      assertFalse("Preloading", links.isEmpty());
+      assertEquals(links, new ArrayList<>(hit.getHeaders("Link")));
+      assertEquals(new ArrayList<>(miss.getHeaders("Vary")), new ArrayList<>(hit.getHeaders("Vary")));
+      assertEquals(miss.getHeader("Content-Length"), hit.getHeader("Content-Length"));
+      assertEquals(miss.toString(), hit.toString());
+    } finally {
+      renderer.uninstall();
+    }
+  }
+}
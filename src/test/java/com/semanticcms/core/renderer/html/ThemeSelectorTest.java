@@ -0,0 +1,137 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.semanticcms.core.model.Link;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.renderer.html.harness.InMemoryRenderer;
+import com.semanticcms.core.renderer.html.harness.LoadDriver;
+import com.semanticcms.core.renderer.html.harness.ResponseRecorder;
+import com.semanticcms.core.renderer.html.harness.Servlets;
+import com.semanticcms.core.renderer.html.harness.SimpleTheme;
+import com.semanticcms.core.renderer.html.harness.SimpleView;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Conditional requests and the {@code Vary} header with {@link ThemeSelector}.
+ */
+public class ThemeSelectorTest {
+
+  private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+  private static final String COOKIE_NAME = "theme";
+
+  private static final String OTHER_THEME_NAME = "other";
+
+  private SyntheticBook book;
+  private ServletContext servletContext;
+  private InMemoryRenderer renderer;
+
+  @Before
+  public void setUp() {
+    book = new SyntheticBook(10, 3, 3, 1, 0);
+    servletContext = InMemoryRenderer.newServletContext(book.getPages());
+    renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+    renderer.addView(new SimpleView(Link.DEFAULT_VIEW_NAME, "Content", false, LAST_MODIFIED));
+    renderer.addTheme(new SimpleTheme(HtmlRenderer.DEFAULT_THEME_NAME, "Simple", true));
+    renderer.addTheme(new SimpleTheme(OTHER_THEME_NAME, "Other", true));
+  }
+
+  @After
+  public void tearDown() {
+    renderer.uninstall();
+  }
+
+  /**
+   * Requests the root page, if modified since its last modified time.
+   */
+  private ResponseRecorder render(String cookie) throws Exception {
+    Page root = book.getRoot();
+    PageRef pageRef = root.getPageRef();
+    Map<String, String> headers = new HashMap<>();
+    headers.put(
+        "If-Modified-Since",
+        DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC).format(Instant.ofEpochMilli(LAST_MODIFIED))
+    );
+    if (cookie != null) {
+      headers.put("Cookie", cookie);
+    }
+    ResponseRecorder recorder = new ResponseRecorder();
+    new LoadDriver(servletContext, renderer, Collections.singleton(root), Collections.emptyMap()).render(
+        root,
+        Servlets.newRequest(servletContext, "GET", pageRef.getBookRef().getPrefix() + pageRef.getPath(), Collections.emptyMap(), headers),
+        recorder.getResponse()
+    );
+    return recorder;
+  }
+
+  @Test
+  public void testNotModifiedWithoutVaryingSelector() throws Exception {
+    renderer.addThemeSelector(new ThemeSelector.RequestAttribute(COOKIE_NAME));
+    ResponseRecorder recorder = render(null);
+    assertEquals(HttpServletResponse.SC_NOT_MODIFIED, recorder.getStatus());
+    assertTrue(recorder.getHeaders("Vary").isEmpty());
+  }
+
+  @Test
+  public void testCookieSelectorVaries() throws Exception {
+    renderer.addThemeSelector(new ThemeSelector.CookieValue(COOKIE_NAME));
+    for (String cookie : new String[] {null, COOKIE_NAME + "=" + OTHER_THEME_NAME}) {
+      ResponseRecorder recorder = render(cookie);
+      assertEquals("Never not modified when the theme varies: " + cookie, HttpServletResponse.SC_OK, recorder.getStatus());
+      assertEquals(Collections.singletonList("Cookie"), recorder.getHeaders("Vary"));
+      assertTrue(recorder.toString().contains("<h1>" + book.getRoot().getTitle() + "</h1>"));
+    }
+  }
+
+  @Test
+  public void testCookieSelectsTheme() {
+    Map<String, Theme> themes = renderer.getThemes();
+    ThemeSelector selector = new ThemeSelector.CookieValue(COOKIE_NAME);
+    assertEquals("Cookie", selector.getVary());
+    HttpServletRequest request = Servlets.newRequest(
+        servletContext,
+        "GET",
+        "/",
+        Collections.emptyMap(),
+        Collections.singletonMap("Cookie", "other=x; " + COOKIE_NAME + "=" + OTHER_THEME_NAME)
+    );
+    assertEquals(themes.get(OTHER_THEME_NAME), selector.selectTheme(request, themes));
+  }
+}
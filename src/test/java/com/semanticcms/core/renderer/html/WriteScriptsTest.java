@@ -0,0 +1,90 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html;
+
+import static org.junit.Assert.assertEquals;
+
+import com.aoapps.encoding.Doctype;
+import com.semanticcms.core.renderer.html.harness.InMemoryRenderer;
+import com.semanticcms.core.renderer.html.harness.ResponseRecorder;
+import com.semanticcms.core.renderer.html.harness.Servlets;
+import com.semanticcms.core.renderer.html.harness.SyntheticBook;
+import java.io.StringWriter;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+
+/**
+ * Tests {@link HtmlRenderer#writeScripts(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.aoapps.encoding.Doctype, java.io.Writer)}.
+ */
+public class WriteScriptsTest {
+
+  private static String writeScripts(Doctype doctype) throws Exception {
+    ServletContext servletContext = InMemoryRenderer.newServletContext(new SyntheticBook(1, 1, 1, 1, 0).getPages());
+    InMemoryRenderer renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+    try {
+      renderer.addScript("first", "/first.js");
+      renderer.addScript("second", "/second.js?a=1&b=2");
+      StringWriter out = new StringWriter();
+      renderer.writeScripts(
+          Servlets.newRequest(servletContext, "/test"),
+          new ResponseRecorder().getResponse(),
+          doctype,
+          out
+      );
+      return out.toString();
+    } finally {
+      renderer.uninstall();
+    }
+  }
+
+  @Test
+  public void testHtml5() throws Exception {
+    assertEquals(
+        "<script src=\"" + Servlets.CONTEXT_PATH + "/first.js\"></script>"
+            + "<script src=\"" + Servlets.CONTEXT_PATH + "/second.js?a=1&amp;b=2\"></script>",
+        writeScripts(Doctype.HTML5)
+    );
+  }
+
+  @Test
+  public void testStrict() throws Exception {
+    assertEquals(
+        "<script type=\"text/javascript\" src=\"" + Servlets.CONTEXT_PATH + "/first.js\"></script>"
+            + "<script type=\"text/javascript\" src=\"" + Servlets.CONTEXT_PATH + "/second.js?a=1&amp;b=2\"></script>",
+        writeScripts(Doctype.STRICT)
+    );
+  }
+
+  @Test
+  public void testNoScripts() throws Exception {
+    ServletContext servletContext = InMemoryRenderer.newServletContext(new SyntheticBook(1, 1, 1, 1, 0).getPages());
+    InMemoryRenderer renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+    try {
+      StringWriter out = new StringWriter();
+      renderer.writeScripts(Servlets.newRequest(servletContext, "/test"), new ResponseRecorder().getResponse(), Doctype.HTML5, out);
+      assertEquals("", out.toString());
+    } finally {
+      renderer.uninstall();
+    }
+  }
+}
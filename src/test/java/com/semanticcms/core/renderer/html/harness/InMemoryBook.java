@@ -0,0 +1,191 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html.harness;
+
+import com.aoapps.lang.validation.ValidationException;
+import com.aoapps.net.DomainName;
+import com.aoapps.net.Path;
+import com.semanticcms.core.model.BookRef;
+import com.semanticcms.core.model.ChildRef;
+import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.model.ParentRef;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A book of pages built programmatically, already captured, to be served by an {@link InMemoryRenderer}.
+ *
+ * <pre>
+ * InMemoryBook book = new InMemoryBook.Builder("example.com", "/book")
+ *     .page("/index.jspx", "Home")
+ *     .page("/about.jspx", "About")
+ *     .child("/index.jspx", "/about.jspx")
+ *     .link("/about.jspx", "/index.jspx")
+ *     .build("/index.jspx");
+ * </pre>
+ */
+public final class InMemoryBook {
+
+  /**
+   * Builds an {@link InMemoryBook}.  Pages must be added before they are referenced.
+   * Builders are not thread-safe.
+   */
+  public static final class Builder {
+
+    private final BookRef bookRef;
+    private final Map<PageRef, Page> pages = new LinkedHashMap<>();
+    private boolean built;
+
+    public Builder(BookRef bookRef) {
+      this.bookRef = bookRef;
+    }
+
+    public Builder(String domain, String path) {
+      try {
+        this.bookRef = new BookRef(DomainName.valueOf(domain), Path.valueOf(path));
+      } catch (ValidationException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    private PageRef getPageRef(String path) {
+      try {
+        return new PageRef(bookRef, Path.valueOf(path));
+      } catch (ValidationException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    private Page getPage(String path) {
+      if (built) {
+        throw new IllegalStateException("Already built");
+      }
+      Page page = pages.get(getPageRef(path));
+      if (page == null) {
+        throw new IllegalArgumentException("Page not added: " + path);
+      }
+      return page;
+    }
+
+    /**
+     * Adds a new page.
+     *
+     * @throws  IllegalArgumentException  when the page has already been added
+     */
+    public Builder page(String path, String title) throws IllegalArgumentException {
+      if (built) {
+        throw new IllegalStateException("Already built");
+      }
+      PageRef pageRef = getPageRef(path);
+      if (pages.containsKey(pageRef)) {
+        throw new IllegalArgumentException("Page already added: " + path);
+      }
+      Page page = new Page();
+      page.setPageRef(pageRef);
+      page.setTitle(title);
+      pages.put(pageRef, page);
+      return this;
+    }
+
+    /**
+     * Makes one page a child of another, adding the references in both directions.
+     */
+    public Builder child(String parentPath, String childPath) {
+      Page parent = getPage(parentPath);
+      Page child = getPage(childPath);
+      parent.addChildRef(new ChildRef(child.getPageRef()));
+      child.addParentRef(new ParentRef(parent.getPageRef(), null));
+      return this;
+    }
+
+    /**
+     * Adds an element to a page.  The element has no body.
+     */
+    public Builder element(String path, Element element) {
+      getPage(path).addChildElement(element, null);
+      return this;
+    }
+
+    /**
+     * Adds a link from one page to another.
+     */
+    public Builder link(String fromPath, String toPath) {
+      getPage(fromPath).addPageLink(getPage(toPath).getPageRef());
+      return this;
+    }
+
+    /**
+     * Freezes all pages and builds the book.  The builder may not be used after this.
+     */
+    public InMemoryBook build(String rootPath) {
+      Page root = getPage(rootPath);
+      built = true;
+      for (Page page : pages.values()) {
+        page.freeze();
+      }
+      return new InMemoryBook(bookRef, Collections.unmodifiableMap(pages), root);
+    }
+  }
+
+  private final BookRef bookRef;
+  private final Map<PageRef, Page> pages;
+  private final Page root;
+
+  private InMemoryBook(BookRef bookRef, Map<PageRef, Page> pages, Page root) {
+    this.bookRef = bookRef;
+    this.pages = pages;
+    this.root = root;
+  }
+
+  public BookRef getBookRef() {
+    return bookRef;
+  }
+
+  /**
+   * Gets all pages by reference, in the order added.
+   */
+  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+  public Map<PageRef, Page> getPages() {
+    return pages;
+  }
+
+  public Page getRoot() {
+    return root;
+  }
+
+  /**
+   * Gets a page by path.
+   *
+   * @return  the page or {@code null} when not in this book
+   */
+  public Page getPage(String path) {
+    try {
+      return pages.get(new PageRef(bookRef, Path.valueOf(path)));
+    } catch (ValidationException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+}
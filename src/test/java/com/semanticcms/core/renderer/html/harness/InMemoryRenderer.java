@@ -0,0 +1,150 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html.harness;
+
+import com.semanticcms.core.model.BookRef;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.pages.CaptureLevel;
+import com.semanticcms.core.renderer.html.HtmlRenderer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * An {@link HtmlRenderer} that captures from an in-memory map of pages, standing in for the capture layer.
+ * All books are accessible.
+ *
+ * <p>The pages captured within each request are recorded in a request attribute, standing in for the request
+ * capture cache.</p>
+ *
+ * <p>Selected by {@link HtmlRenderer#IMPLEMENTATION_INIT_PARAM}, as an application would select its own subclass,
+ * with the pages taken from a context attribute.</p>
+ */
+public final class InMemoryRenderer extends HtmlRenderer {
+
+  private static final String PAGES_ATTRIBUTE = InMemoryRenderer.class.getName() + ".pages";
+
+  private static final String CAPTURED_REQUEST_ATTRIBUTE = InMemoryRenderer.class.getName() + ".captured";
+
+  /**
+   * Gets the highest level each page has been captured at within the given request, as retained by the request
+   * capture cache.
+   */
+  @SuppressWarnings("unchecked")
+  public static Map<PageRef, CaptureLevel> getCaptured(ServletRequest request) {
+    Map<PageRef, CaptureLevel> captured = (Map<PageRef, CaptureLevel>) request.getAttribute(CAPTURED_REQUEST_ATTRIBUTE);
+    return (captured == null) ? Collections.emptyMap() : Collections.unmodifiableMap(captured);
+  }
+
+  /**
+   * Creates a new servlet context, with the given context-params, that uses an {@link InMemoryRenderer} over the
+   * given pages.
+   *
+   * @see  Servlets#newServletContext(java.util.Map)
+   */
+  public static ServletContext newServletContext(Map<PageRef, Page> pages, Map<String, String> initParameters) {
+    Map<String, String> params = new LinkedHashMap<>(initParameters);
+    params.put(IMPLEMENTATION_INIT_PARAM, InMemoryRenderer.class.getName());
+    ServletContext servletContext = Servlets.newServletContext(params);
+    servletContext.setAttribute(PAGES_ATTRIBUTE, pages);
+    return servletContext;
+  }
+
+  /**
+   * Creates a new servlet context, without any other context-params, that uses an {@link InMemoryRenderer} over the
+   * given pages.
+   */
+  public static ServletContext newServletContext(Map<PageRef, Page> pages) {
+    return newServletContext(pages, Collections.emptyMap());
+  }
+
+  /**
+   * Gets the {@linkplain HtmlRenderer#getInstance(javax.servlet.ServletContext) instance} for a context created by
+   * {@link #newServletContext(java.util.Map)}.
+   */
+  public static InMemoryRenderer getInMemoryInstance(ServletContext servletContext) {
+    HtmlRenderer renderer = HtmlRenderer.getInstance(servletContext);
+    if (!(renderer instanceof InMemoryRenderer)) {
+      throw new IllegalStateException(IMPLEMENTATION_INIT_PARAM + " is not " + InMemoryRenderer.class.getName());
+    }
+    return (InMemoryRenderer) renderer;
+  }
+
+  private final ServletContext servletContext;
+  private final Map<PageRef, Page> pages;
+
+  @SuppressWarnings("unchecked")
+  public InMemoryRenderer(ServletContext servletContext) {
+    super(servletContext);
+    this.servletContext = servletContext;
+    this.pages = (Map<PageRef, Page>) servletContext.getAttribute(PAGES_ATTRIBUTE);
+    if (pages == null) {
+      throw new IllegalStateException("Pages not set, use InMemoryRenderer.newServletContext");
+    }
+  }
+
+  /**
+   * Removes this renderer from its context.
+   */
+  public void uninstall() {
+    APPLICATION_ATTRIBUTE.context(servletContext).remove();
+    servletContext.removeAttribute(PAGES_ATTRIBUTE);
+    destroy();
+  }
+
+  @Override
+  protected Page capturePage(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      PageRef pageRef,
+      CaptureLevel level
+  ) throws ServletException {
+    Page page = pages.get(pageRef);
+    if (page == null) {
+      throw new ServletException("Page not found: " + pageRef);
+    }
+    @SuppressWarnings("unchecked")
+    Map<PageRef, CaptureLevel> captured = (Map<PageRef, CaptureLevel>) request.getAttribute(CAPTURED_REQUEST_ATTRIBUTE);
+    if (captured == null) {
+      // Shared when pages are captured concurrently on requests that inherit attributes
+      captured = new ConcurrentHashMap<>();
+      request.setAttribute(CAPTURED_REQUEST_ATTRIBUTE, captured);
+    }
+    captured.merge(pageRef, level, (a, b) -> (a.compareTo(b) >= 0) ? a : b);
+    return page;
+  }
+
+  @Override
+  protected boolean isAccessible(BookRef bookRef) {
+    return true;
+  }
+}
@@ -0,0 +1,298 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html.harness;
+
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.renderer.html.HtmlRenderer;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.jsp.SkipPageException;
+
+/**
+ * Drives {@link HtmlRenderer#newPageRenderer(com.semanticcms.core.model.Page, java.util.Map)} from many threads
+ * at once, each request with its own in-memory request and {@link ResponseRecorder}.
+ *
+ * <p>Pages are requested round-robin, offset by thread, so concurrent threads render different pages.
+ * All threads are released together after being started.</p>
+ */
+public final class LoadDriver {
+
+  /**
+   * The outcome of a single {@link LoadDriver#run(int, int)}.
+   */
+  public static final class Result {
+
+    private final int threads;
+    private final long requests;
+    private final long errors;
+    private final long bytes;
+    private final long elapsedNanos;
+    private final long maxNanos;
+    private final Throwable firstError;
+
+    private Result(int threads, long requests, long errors, long bytes, long elapsedNanos, long maxNanos, Throwable firstError) {
+      this.threads = threads;
+      this.requests = requests;
+      this.errors = errors;
+      this.bytes = bytes;
+      this.elapsedNanos = elapsedNanos;
+      this.maxNanos = maxNanos;
+      this.firstError = firstError;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "threads=%d, requests=%d, errors=%d, bytes=%d, elapsed=%.3f s, throughput=%.1f requests/s, max=%.3f ms",
+          threads,
+          requests,
+          errors,
+          bytes,
+          elapsedNanos / 1e9,
+          getThroughput(),
+          maxNanos / 1e6
+      );
+    }
+
+    public int getThreads() {
+      return threads;
+    }
+
+    /**
+     * Gets the number of requests made, including those in error.
+     */
+    public long getRequests() {
+      return requests;
+    }
+
+    /**
+     * Gets the number of requests that either threw an exception or had a status of
+     * {@link HttpServletResponse#SC_BAD_REQUEST} or higher.
+     */
+    public long getErrors() {
+      return errors;
+    }
+
+    /**
+     * Gets the total number of bytes in all response bodies.
+     */
+    public long getBytes() {
+      return bytes;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /**
+     * Gets the longest time taken by any single request.
+     */
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    /**
+     * Gets the number of requests per second, over all threads.
+     */
+    public double getThroughput() {
+      return (elapsedNanos == 0) ? 0 : (requests * 1e9 / elapsedNanos);
+    }
+
+    /**
+     * Gets the first exception thrown or {@code null} when none.  Error statuses are not exceptions.
+     */
+    public Throwable getFirstError() {
+      return firstError;
+    }
+  }
+
+  /**
+   * Defers {@link HttpServletResponse#getWriter()} until first used, since the renderer may instead use the output
+   * stream, such as when sending from the render cache.
+   */
+  private static final class LazyWriter extends Writer {
+
+    private final HttpServletResponse response;
+    private Writer out;
+
+    private LazyWriter(HttpServletResponse response) {
+      this.response = response;
+    }
+
+    private Writer getOut() throws IOException {
+      if (out == null) {
+        out = response.getWriter();
+      }
+      return out;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+      getOut().write(cbuf, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (out != null) {
+        out.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (out != null) {
+        out.close();
+      }
+    }
+  }
+
+  private final ServletContext servletContext;
+  private final HtmlRenderer renderer;
+  private final List<Page> pages;
+  private final Map<String, String> parameters;
+
+  /**
+   * @param  pages  the pages to request, already captured, which must be capturable by the renderer when a view or
+   *                theme requires a higher {@link com.semanticcms.core.pages.CaptureLevel}
+   * @param  parameters  the parameters sent with every request, such as {@link HtmlRenderer#VIEW_PARAM}
+   */
+  public LoadDriver(ServletContext servletContext, HtmlRenderer renderer, Iterable<? extends Page> pages, Map<String, String> parameters) {
+    this.servletContext = servletContext;
+    this.renderer = renderer;
+    List<Page> list = new ArrayList<>();
+    for (Page page : pages) {
+      list.add(page);
+    }
+    if (list.isEmpty()) {
+      throw new IllegalArgumentException("No pages");
+    }
+    this.pages = Collections.unmodifiableList(list);
+    this.parameters = parameters;
+  }
+
+  /**
+   * Renders the given number of requests from each of the given number of threads, waiting for all to complete.
+   */
+  public Result run(int threads, int requestsPerThread) throws InterruptedException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads < 1: " + threads);
+    }
+    if (requestsPerThread < 0) {
+      throw new IllegalArgumentException("requestsPerThread < 0: " + requestsPerThread);
+    }
+    LongAdder requests = new LongAdder();
+    LongAdder errors = new LongAdder();
+    LongAdder bytes = new LongAdder();
+    LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    AtomicReference<Throwable> firstError = new AtomicReference<>();
+    CountDownLatch ready = new CountDownLatch(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>(threads);
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(executor.submit(() -> {
+          ready.countDown();
+          start.await();
+          int size = pages.size();
+          for (int i = 0; i < requestsPerThread; i++) {
+            Page page = pages.get((int) ((thread + (long) i * threads) % size));
+            long startNanos = System.nanoTime();
+            ResponseRecorder recorder = new ResponseRecorder();
+            try {
+              render(page, recorder.getResponse());
+              if (recorder.getStatus() >= HttpServletResponse.SC_BAD_REQUEST) {
+                errors.increment();
+              }
+            } catch (IOException | ServletException | SkipPageException | RuntimeException e) {
+              errors.increment();
+              firstError.compareAndSet(null, e);
+            }
+            maxNanos.accumulate(System.nanoTime() - startNanos);
+            bytes.add(recorder.toByteArray().length);
+            requests.increment();
+          }
+          return null;
+        }));
+      }
+      ready.await();
+      long startNanos = System.nanoTime();
+      start.countDown();
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          throw new AssertionError("Errors are counted, not thrown", e.getCause());
+        }
+      }
+      long elapsedNanos = System.nanoTime() - startNanos;
+      return new Result(
+          threads,
+          requests.sum(),
+          errors.sum(),
+          bytes.sum(),
+          elapsedNanos,
+          maxNanos.get(),
+          firstError.get()
+      );
+    } finally {
+      executor.shutdownNow();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+  }
+
+  /**
+   * Renders a single page into the given response.
+   */
+  public void render(Page page, HttpServletResponse response) throws IOException, ServletException, SkipPageException {
+    PageRef pageRef = page.getPageRef();
+    render(page, Servlets.newRequest(servletContext, pageRef.getBookRef().getPrefix() + pageRef.getPath(), parameters), response);
+  }
+
+  /**
+   * Renders a single page for the given request, such as one with headers, into the given response.
+   */
+  public void render(Page page, HttpServletRequest request, HttpServletResponse response)
+      throws IOException, ServletException, SkipPageException {
+    renderer.newPageRenderer(page, Collections.emptyMap()).doRenderer(page, request, response, new LazyWriter(response));
+  }
+}
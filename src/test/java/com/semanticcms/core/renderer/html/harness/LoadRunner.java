@@ -0,0 +1,98 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html.harness;
+
+import com.semanticcms.core.model.Link;
+import com.semanticcms.core.renderer.html.HtmlRenderer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import javax.servlet.ServletContext;
+
+/**
+ * Load-tests rendering of a {@link SyntheticBook} without a servlet container:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.semanticcms.core.renderer.html.harness.LoadRunner \
+ *   -Dexec.args="[pages [threads [requestsPerThread]]]"
+ * </pre>
+ *
+ * <p>Each run is repeated in the default view, which streams directly to the response, and in a cacheable view, which
+ * is buffered and served from the render cache after the first request to each page.  The first run of each is
+ * warm-up and is not reported.</p>
+ *
+ * <p>Exits with an exception, and thus a non-zero status, when any reported request is in error.</p>
+ */
+public final class LoadRunner {
+
+  /** Make no instances. */
+  private LoadRunner() {
+    throw new AssertionError();
+  }
+
+  private static final String CACHED_VIEW_NAME = "cached";
+
+  /**
+   * The last modified time of the cached view, which is only cached when it is a last modified validator.
+   */
+  private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+  private static int getArg(String[] args, int index, int defaultValue) {
+    return (args.length > index) ? Integer.parseInt(args[index]) : defaultValue;
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    long errors = 0;
+    int pages = getArg(args, 0, 10000);
+    int threads = getArg(args, 1, Runtime.getRuntime().availableProcessors());
+    int requestsPerThread = getArg(args, 2, 10000);
+    SyntheticBook book = new SyntheticBook(pages, 10, 6, 10, 0);
+    ServletContext servletContext = InMemoryRenderer.newServletContext(book.getPages());
+    InMemoryRenderer renderer = InMemoryRenderer.getInMemoryInstance(servletContext);
+    try {
+      renderer.addView(new SimpleView(Link.DEFAULT_VIEW_NAME, "Content", false));
+      renderer.addView(new SimpleView(CACHED_VIEW_NAME, "Cached", true, LAST_MODIFIED));
+      renderer.addTheme(new SimpleTheme(HtmlRenderer.DEFAULT_THEME_NAME, "Simple", true));
+      for (Map<String, String> parameters : Arrays.<Map<String, String>>asList(
+          Collections.emptyMap(),
+          Collections.singletonMap(HtmlRenderer.VIEW_PARAM, CACHED_VIEW_NAME)
+      )) {
+        LoadDriver driver = new LoadDriver(servletContext, renderer, book.getPages().values(), parameters);
+        driver.run(threads, requestsPerThread);
+        LoadDriver.Result result = driver.run(threads, requestsPerThread);
+        System.out.println(parameters + ": " + result);
+        Throwable firstError = result.getFirstError();
+        if (firstError != null) {
+          firstError.printStackTrace(System.out);
+        }
+        errors += result.getErrors();
+      }
+    } finally {
+      renderer.uninstall();
+    }
+    if (errors != 0) {
+      throw new IllegalStateException("Requests in error: " + errors);
+    }
+  }
+}
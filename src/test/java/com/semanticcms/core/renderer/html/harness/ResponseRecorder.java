@@ -0,0 +1,388 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html.harness;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records everything written to an in-memory {@link HttpServletResponse}.  The buffer is unbounded, so the response
+ * is only committed by {@link HttpServletResponse#flushBuffer()}, by flushing the writer or output stream, or by
+ * {@link HttpServletResponse#sendError(int)} and {@link HttpServletResponse#sendRedirect(java.lang.String)}.
+ * URLs are not encoded.
+ *
+ * <p>{@code sendError(103)} is treated as {@code 103 Early Hints}, as by containers that support them: the
+ * {@code Link} headers are recorded, and the response is not committed.</p>
+ *
+ * <p>Responses are not thread-safe, as in a container.</p>
+ */
+public final class ResponseRecorder {
+
+  private static final String DEFAULT_CHARACTER_ENCODING = StandardCharsets.ISO_8859_1.name();
+
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+  private static final int SC_EARLY_HINTS = 103;
+
+  private static final String LINK_HEADER = "Link";
+
+  private final HttpServletResponse response;
+
+  private int status = HttpServletResponse.SC_OK;
+  private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+  private String contentType;
+  private String characterEncoding;
+  private Locale locale = Locale.ROOT;
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+  private ServletOutputStream outputStream;
+  private PrintWriter writer;
+  private boolean committed;
+  private final List<List<String>> earlyHints = new ArrayList<>();
+
+  public ResponseRecorder() {
+    response = Servlets.newProxy(HttpServletResponse.class, (name, args) -> {
+      switch (name) {
+        // Status
+        case "setStatus":
+          if (!committed) {
+            status = (Integer) args[0];
+          }
+          return null;
+        case "getStatus":
+          return status;
+        case "sendError":
+          checkNotCommitted();
+          if ((Integer) args[0] == SC_EARLY_HINTS) {
+            // Sent as an informational response, as by containers that support early hints
+            earlyHints.add(new ArrayList<>(getHeaders(LINK_HEADER)));
+            return null;
+          }
+          resetBuffer();
+          status = (Integer) args[0];
+          committed = true;
+          return null;
+        case "sendRedirect":
+          checkNotCommitted();
+          resetBuffer();
+          status = HttpServletResponse.SC_FOUND;
+          setHeader("Location", (String) args[0]);
+          committed = true;
+          return null;
+        // Headers
+        case "setHeader":
+          setHeader((String) args[0], (String) args[1]);
+          return null;
+        case "addHeader":
+          addHeader((String) args[0], (String) args[1]);
+          return null;
+        case "setDateHeader":
+          setHeader((String) args[0], formatDate((Long) args[1]));
+          return null;
+        case "addDateHeader":
+          addHeader((String) args[0], formatDate((Long) args[1]));
+          return null;
+        case "setIntHeader":
+          setHeader((String) args[0], Integer.toString((Integer) args[1]));
+          return null;
+        case "addIntHeader":
+          addHeader((String) args[0], Integer.toString((Integer) args[1]));
+          return null;
+        case "containsHeader":
+          return headers.containsKey((String) args[0]);
+        case "getHeader":
+          return getHeader((String) args[0]);
+        case "getHeaders":
+          return getHeaders((String) args[0]);
+        case "getHeaderNames":
+          return Collections.unmodifiableCollection(new ArrayList<>(headers.keySet()));
+        case "setContentLength":
+          setHeader("Content-Length", Integer.toString((Integer) args[0]));
+          return null;
+        case "setContentLengthLong":
+          setHeader("Content-Length", Long.toString((Long) args[0]));
+          return null;
+        // Content type
+        case "setContentType":
+          setContentType((String) args[0]);
+          return null;
+        case "getContentType":
+          return getContentType();
+        case "setCharacterEncoding":
+          if (!committed && writer == null) {
+            characterEncoding = (String) args[0];
+          }
+          return null;
+        case "getCharacterEncoding":
+          return getCharacterEncoding();
+        case "setLocale":
+          if (!committed) {
+            locale = (Locale) args[0];
+          }
+          return null;
+        case "getLocale":
+          return locale;
+        // Body
+        case "getOutputStream":
+          return getOutputStream();
+        case "getWriter":
+          return getWriter();
+        case "getBufferSize":
+          return Integer.MAX_VALUE;
+        case "flushBuffer":
+          if (writer != null) {
+            writer.flush();
+          }
+          committed = true;
+          return null;
+        case "isCommitted":
+          return committed;
+        case "resetBuffer":
+          resetBuffer();
+          return null;
+        case "reset":
+          resetBuffer();
+          status = HttpServletResponse.SC_OK;
+          headers.clear();
+          contentType = null;
+          characterEncoding = null;
+          locale = Locale.ROOT;
+          outputStream = null;
+          writer = null;
+          return null;
+        // URLs
+        case "encodeURL":
+        case "encodeRedirectURL":
+        case "encodeUrl":
+        case "encodeRedirectUrl":
+          return args[0];
+        default:
+          return Servlets.UNHANDLED;
+      }
+    });
+  }
+
+  private void checkNotCommitted() throws IllegalStateException {
+    if (committed) {
+      throw new IllegalStateException("Response already committed");
+    }
+  }
+
+  private static String formatDate(long millis) {
+    return DATE_FORMAT.format(Instant.ofEpochMilli(millis));
+  }
+
+  private void setHeader(String name, String value) {
+    if (!committed) {
+      List<String> values = new ArrayList<>(1);
+      values.add(value);
+      headers.put(name, values);
+    }
+  }
+
+  private void addHeader(String name, String value) {
+    if (!committed) {
+      headers.computeIfAbsent(name, n -> new ArrayList<>(1)).add(value);
+    }
+  }
+
+  private void setContentType(String type) {
+    if (committed) {
+      return;
+    }
+    if (type == null) {
+      contentType = null;
+      return;
+    }
+    int semicolon = type.indexOf(';');
+    if (semicolon == -1) {
+      contentType = type;
+    } else {
+      contentType = type.substring(0, semicolon).trim();
+      int charset = type.toLowerCase(Locale.ROOT).indexOf("charset=", semicolon);
+      if (charset != -1 && writer == null) {
+        characterEncoding = type.substring(charset + "charset=".length()).trim();
+      }
+    }
+  }
+
+  private void resetBuffer() throws IllegalStateException {
+    checkNotCommitted();
+    if (writer != null) {
+      // Discard characters still buffered in the encoder
+      writer.flush();
+      committed = false;
+    }
+    body.reset();
+  }
+
+  private ServletOutputStream getOutputStream() throws IllegalStateException {
+    if (writer != null) {
+      throw new IllegalStateException("getWriter() has already been called");
+    }
+    if (outputStream == null) {
+      outputStream = new ServletOutputStream() {
+        @Override
+        public void write(int b) {
+          body.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          body.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+          committed = true;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        /**
+         * Always ready, so notifies the listener immediately.
+         */
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+          try {
+            writeListener.onWritePossible();
+          } catch (IOException e) {
+            writeListener.onError(e);
+          }
+        }
+      };
+    }
+    return outputStream;
+  }
+
+  private PrintWriter getWriter() throws IllegalStateException {
+    if (writer == null) {
+      if (outputStream != null) {
+        throw new IllegalStateException("getOutputStream() has already been called");
+      }
+      writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+      outputStream = null;
+    }
+    return writer;
+  }
+
+  /**
+   * Gets the response to pass to the renderer.
+   */
+  public HttpServletResponse getResponse() {
+    return response;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  /**
+   * Gets the first value of the given header, matched case-insensitively.
+   *
+   * @return  the value or {@code null} when not set
+   */
+  public String getHeader(String name) {
+    List<String> values = headers.get(name);
+    return (values == null) ? null : values.get(0);
+  }
+
+  /**
+   * Gets all values of the given header, matched case-insensitively.
+   */
+  public Collection<String> getHeaders(String name) {
+    List<String> values = headers.get(name);
+    return (values == null) ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(values));
+  }
+
+  /**
+   * Gets the content type, including the character encoding once the writer has been used.
+   */
+  public String getContentType() {
+    if (contentType == null) {
+      return null;
+    } else if (writer != null || characterEncoding != null) {
+      return contentType + ";charset=" + getCharacterEncoding();
+    } else {
+      return contentType;
+    }
+  }
+
+  public String getCharacterEncoding() {
+    return (characterEncoding == null) ? DEFAULT_CHARACTER_ENCODING : characterEncoding;
+  }
+
+  public boolean isCommitted() {
+    return committed;
+  }
+
+  /**
+   * Gets the {@code Link} headers sent by each {@code 103 Early Hints}, in the order sent.
+   */
+  public List<List<String>> getEarlyHints() {
+    List<List<String>> copy = new ArrayList<>(earlyHints.size());
+    for (List<String> links : earlyHints) {
+      copy.add(Collections.unmodifiableList(links));
+    }
+    return Collections.unmodifiableList(copy);
+  }
+
+  /**
+   * Gets the bytes of the body, after flushing any characters buffered by the writer.
+   */
+  public byte[] toByteArray() {
+    if (writer != null) {
+      boolean wasCommitted = committed;
+      writer.flush();
+      committed = wasCommitted;
+    }
+    return body.toByteArray();
+  }
+
+  /**
+   * Gets the body, decoded in the response character encoding.
+   */
+  @Override
+  public String toString() {
+    return new String(toByteArray(), Charset.forName(getCharacterEncoding()));
+  }
+}
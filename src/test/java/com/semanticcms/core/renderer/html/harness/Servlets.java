@@ -0,0 +1,343 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html.harness;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletContext;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Minimal in-memory servlet contexts and requests, implemented with {@link Proxy}.
+ * Attributes are supported, other methods not implemented return {@code null}, zero, or {@code false}.
+ *
+ * @see  ResponseRecorder
+ */
+public final class Servlets {
+
+  /** Make no instances. */
+  private Servlets() {
+    throw new AssertionError();
+  }
+
+  /**
+   * The context path of all contexts and requests.
+   */
+  public static final String CONTEXT_PATH = "/context";
+
+  /**
+   * Answers a method call or returns {@link #UNHANDLED} for the default value.
+   */
+  @FunctionalInterface
+  static interface Handler {
+    Object invoke(String name, Object[] args) throws Exception;
+  }
+
+  static final Object UNHANDLED = new Object();
+
+  private static Object getDefaultValue(Class<?> type) {
+    if (!type.isPrimitive() || type == void.class) {
+      return null;
+    } else if (type == boolean.class) {
+      return false;
+    } else if (type == char.class) {
+      return '\0';
+    } else if (type == byte.class) {
+      return (byte) 0;
+    } else if (type == short.class) {
+      return (short) 0;
+    } else if (type == int.class) {
+      return 0;
+    } else if (type == long.class) {
+      return 0L;
+    } else if (type == float.class) {
+      return 0f;
+    } else if (type == double.class) {
+      return 0d;
+    } else {
+      throw new AssertionError(type);
+    }
+  }
+
+  static <T> T newProxy(Class<T> iface, Handler handler) {
+    InvocationHandler invocationHandler = new InvocationHandler() {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+        String name = method.getName();
+        if (method.getDeclaringClass() == Object.class) {
+          switch (name) {
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "toString":
+              return iface.getSimpleName() + '@' + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+              throw new AssertionError(name);
+          }
+        }
+        Object result = handler.invoke(name, args);
+        return (result == UNHANDLED) ? getDefaultValue(method.getReturnType()) : result;
+      }
+    };
+    return iface.cast(Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[] {iface}, invocationHandler));
+  }
+
+  private static Object handleAttributes(Map<String, Object> attributes, String name, Object[] args) {
+    switch (name) {
+      case "getAttribute":
+        return attributes.get((String) args[0]);
+      case "setAttribute":
+        if (args[1] == null) {
+          attributes.remove((String) args[0]);
+        } else {
+          attributes.put((String) args[0], args[1]);
+        }
+        return null;
+      case "removeAttribute":
+        attributes.remove((String) args[0]);
+        return null;
+      case "getAttributeNames":
+        return Collections.enumeration(attributes.keySet());
+      default:
+        return UNHANDLED;
+    }
+  }
+
+  /**
+   * Creates a new, thread-safe servlet context.
+   *
+   * @param  initParameters  the context-params, such as those of {@link com.semanticcms.core.renderer.html.HtmlRenderer}
+   */
+  public static ServletContext newServletContext(Map<String, String> initParameters) {
+    Map<String, String> params = Collections.unmodifiableMap(new LinkedHashMap<>(initParameters));
+    Map<String, Object> attributes = new ConcurrentHashMap<>();
+    return newProxy(ServletContext.class, (name, args) -> {
+      switch (name) {
+        case "getContextPath":
+          return CONTEXT_PATH;
+        case "getMajorVersion":
+        case "getEffectiveMajorVersion":
+          return 3;
+        case "getMinorVersion":
+        case "getEffectiveMinorVersion":
+          return 1;
+        case "getServletContextName":
+          return Servlets.class.getName();
+        case "getServerInfo":
+          return Servlets.class.getName();
+        case "getInitParameter":
+          return params.get((String) args[0]);
+        case "getInitParameterNames":
+          return Collections.enumeration(params.keySet());
+        default:
+          return handleAttributes(attributes, name, args);
+      }
+    });
+  }
+
+  /**
+   * Creates a new, thread-safe servlet context without any context-params.
+   */
+  public static ServletContext newServletContext() {
+    return newServletContext(Collections.emptyMap());
+  }
+
+  private static String getQueryString(Map<String, String> parameters) {
+    if (parameters.isEmpty()) {
+      return null;
+    }
+    try {
+      StringBuilder queryString = new StringBuilder();
+      for (Map.Entry<String, String> entry : parameters.entrySet()) {
+        if (queryString.length() > 0) {
+          queryString.append('&');
+        }
+        queryString
+            .append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8.name()))
+            .append('=')
+            .append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8.name()));
+      }
+      return queryString.toString();
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError("UTF-8 is always supported", e);
+    }
+  }
+
+  /**
+   * Parses the name and value pairs of a {@code Cookie} header, without any unquoting.
+   *
+   * @return  The cookies or {@code null} when none, as in a container
+   */
+  private static Cookie[] getCookies(String header) {
+    if (header == null) {
+      return null;
+    }
+    List<Cookie> cookies = new ArrayList<>();
+    for (String pair : header.split(";")) {
+      int eq = pair.indexOf('=');
+      if (eq != -1) {
+        cookies.add(new Cookie(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim()));
+      }
+    }
+    return cookies.isEmpty() ? null : cookies.toArray(new Cookie[cookies.size()]);
+  }
+
+  /**
+   * Creates a new request.  Requests are not thread-safe, as in a container.
+   *
+   * @param  servletPath  the path within the context, which is the book prefix and page path
+   * @param  parameters  the request parameters, also used for the query string
+   * @param  headers  the request headers, matched case-insensitively
+   */
+  public static HttpServletRequest newRequest(
+      ServletContext servletContext,
+      String method,
+      String servletPath,
+      Map<String, String> parameters,
+      Map<String, String> headers
+  ) {
+    Map<String, String> params = Collections.unmodifiableMap(new LinkedHashMap<>(parameters));
+    Map<String, String[]> parameterMap = new LinkedHashMap<>();
+    for (Map.Entry<String, String> entry : params.entrySet()) {
+      parameterMap.put(entry.getKey(), new String[] {entry.getValue()});
+    }
+    Map<String, String[]> unmodifiableParameterMap = Collections.unmodifiableMap(parameterMap);
+    String queryString = getQueryString(params);
+    Map<String, String> headerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    headerMap.putAll(headers);
+    Map<String, Object> attributes = new HashMap<>();
+    return newProxy(HttpServletRequest.class, (name, args) -> {
+      switch (name) {
+        case "getServletContext":
+          return servletContext;
+        case "getMethod":
+          return method;
+        case "getScheme":
+          return "http";
+        case "getProtocol":
+          return "HTTP/1.1";
+        case "getServerName":
+        case "getLocalName":
+          return "localhost";
+        case "getServerPort":
+        case "getLocalPort":
+          return 80;
+        case "getRemoteAddr":
+        case "getLocalAddr":
+          return "127.0.0.1";
+        case "getContextPath":
+          return CONTEXT_PATH;
+        case "getServletPath":
+          return servletPath;
+        case "getRequestURI":
+          return CONTEXT_PATH + servletPath;
+        case "getRequestURL":
+          return new StringBuffer("http://localhost").append(CONTEXT_PATH).append(servletPath);
+        case "getQueryString":
+          return queryString;
+        case "getCharacterEncoding":
+          return StandardCharsets.UTF_8.name();
+        case "getLocale":
+          return Locale.ROOT;
+        case "getLocales":
+          return Collections.enumeration(Collections.singleton(Locale.ROOT));
+        case "getDispatcherType":
+          return DispatcherType.REQUEST;
+        case "getParameter":
+          return params.get((String) args[0]);
+        case "getParameterValues":
+          return unmodifiableParameterMap.get((String) args[0]);
+        case "getParameterNames":
+          return Collections.enumeration(params.keySet());
+        case "getParameterMap":
+          return unmodifiableParameterMap;
+        case "getHeader":
+          return headerMap.get((String) args[0]);
+        case "getHeaders": {
+          String value = headerMap.get((String) args[0]);
+          return (value == null) ? Collections.emptyEnumeration() : Collections.enumeration(Collections.singleton(value));
+        }
+        case "getHeaderNames":
+          return Collections.enumeration(headerMap.keySet());
+        case "getDateHeader": {
+          String value = headerMap.get((String) args[0]);
+          if (value == null) {
+            return -1L;
+          }
+          try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+          } catch (DateTimeParseException e) {
+            // As specified by HttpServletRequest.getDateHeader
+            throw new IllegalArgumentException(e);
+          }
+        }
+        case "getCookies":
+          return getCookies(headerMap.get("Cookie"));
+        case "getIntHeader": {
+          String value = headerMap.get((String) args[0]);
+          return (value == null) ? -1 : Integer.parseInt(value);
+        }
+        default:
+          return handleAttributes(attributes, name, args);
+      }
+    });
+  }
+
+  /**
+   * Creates a new {@code GET} request without any headers.
+   *
+   * @see  #newRequest(javax.servlet.ServletContext, java.lang.String, java.lang.String, java.util.Map, java.util.Map)
+   */
+  public static HttpServletRequest newRequest(ServletContext servletContext, String servletPath, Map<String, String> parameters) {
+    return newRequest(servletContext, "GET", servletPath, parameters, Collections.emptyMap());
+  }
+
+  /**
+   * Creates a new {@code GET} request without any parameters or headers.
+   *
+   * @see  #newRequest(javax.servlet.ServletContext, java.lang.String, java.lang.String, java.util.Map, java.util.Map)
+   */
+  public static HttpServletRequest newRequest(ServletContext servletContext, String servletPath) {
+    return newRequest(servletContext, servletPath, Collections.emptyMap());
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html.harness;
+
+import com.aoapps.encoding.servlet.DoctypeEE;
+import com.aoapps.encoding.servlet.SerializationEE;
+import com.aoapps.html.servlet.DocumentEE;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.renderer.html.ComponentPosition;
+import com.semanticcms.core.renderer.html.ComponentUtils;
+import com.semanticcms.core.renderer.html.HtmlRenderer;
+import com.semanticcms.core.renderer.html.Theme;
+import com.semanticcms.core.renderer.html.View;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.jsp.SkipPageException;
+
+/**
+ * A theme that writes a minimal document around the view, writing the
+ * {@linkplain HtmlRenderer#writeScripts(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.aoapps.encoding.Doctype, java.io.Writer) registered scripts},
+ * calling the components in each {@link ComponentPosition}, and {@linkplain Theme#flushHead(javax.servlet.ServletRequest, javax.servlet.ServletResponse, java.io.Writer) flushing the head}
+ * as a real theme would.
+ */
+public class SimpleTheme extends Theme {
+
+  private final String name;
+  private final String display;
+  private final boolean cacheable;
+
+  public SimpleTheme(String name, String display, boolean cacheable) {
+    this.name = name;
+    this.display = display;
+    this.cacheable = cacheable;
+  }
+
+  @Override
+  public String getDisplay() {
+    return display;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean isCacheable() {
+    return cacheable;
+  }
+
+  @Override
+  public void doTheme(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      View view,
+      Page page
+  ) throws ServletException, IOException, SkipPageException {
+    response.setContentType(SerializationEE.get(servletContext, request).getContentType());
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    PrintWriter out = response.getWriter();
+    DocumentEE document = new DocumentEE(servletContext, request, response, out);
+    document.xmlDeclaration();
+    document.doctype();
+    var html_c = document.html()._c();
+    var head_c = html_c.head()._c();
+    ComponentUtils.doComponents(servletContext, request, response, document, view, page, ComponentPosition.HEAD_START, false);
+    head_c.title__(view.getTitle(servletContext, request, response, page));
+    HtmlRenderer.getInstance(servletContext).writeScripts(request, response, DoctypeEE.get(servletContext, request), out);
+    ComponentUtils.doComponents(servletContext, request, response, document, view, page, ComponentPosition.HEAD_END, true);
+    head_c.__();
+    Theme.flushHead(request, response, out);
+    var body_c = html_c.body()._c();
+    ComponentUtils.doComponents(servletContext, request, response, document, view, page, ComponentPosition.BODY_START, false);
+    view.doView(servletContext, request, response, body_c, page);
+    ComponentUtils.doComponents(servletContext, request, response, document, view, page, ComponentPosition.BODY_END, true);
+    body_c.__();
+    html_c.__();
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.renderer.html.harness;
+
+import com.aoapps.html.servlet.FlowContent;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.renderer.html.View;
+import java.io.IOException;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.joda.time.Instant;
+import org.joda.time.ReadableInstant;
+
+/**
+ * A view that writes the page title and a summary of the page, without depending on
+ * {@link com.semanticcms.core.controller.SemanticCMS}.
+ */
+public class SimpleView extends View {
+
+  private final String name;
+  private final String display;
+  private final boolean cacheable;
+  private final long lastModified;
+
+  /**
+   * @param  cacheable     When {@code true}, the view is both {@linkplain #isCacheable() cacheable} and
+   *                       {@linkplain #isBuffered() buffered}
+   * @param  lastModified  The {@linkplain #getLastModified(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page) last modified time}
+   *                       of every page, making the view a {@linkplain #isLastModifiedValidator() last modified validator},
+   *                       or {@code -1} when unknown.  Only views with a known last modified time are stored in the
+   *                       render cache.
+   */
+  public SimpleView(String name, String display, boolean cacheable, long lastModified) {
+    this.name = name;
+    this.display = display;
+    this.cacheable = cacheable;
+    this.lastModified = lastModified;
+  }
+
+  /**
+   * Without a last modified time.
+   */
+  public SimpleView(String name, String display, boolean cacheable) {
+    this(name, display, cacheable, -1);
+  }
+
+  @Override
+  public Group getGroup() {
+    return Group.FIXED;
+  }
+
+  @Override
+  public String getDisplay() {
+    return display;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean isBuffered() {
+    return cacheable;
+  }
+
+  @Override
+  public boolean isCacheable() {
+    return cacheable;
+  }
+
+  @Override
+  public ReadableInstant getLastModified(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page
+  ) {
+    return (lastModified == -1) ? null : new Instant(lastModified);
+  }
+
+  @Override
+  public boolean isLastModifiedValidator() {
+    return lastModified != -1;
+  }
+
+  /**
+   * Does not include the book title, which would require {@link com.semanticcms.core.controller.SemanticCMS}.
+   */
+  @Override
+  public String getTitle(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page
+  ) {
+    return getDisplay() + TITLE_SEPARATOR + page.getTitle();
+  }
+
+  @Override
+  public String getDescription(Page page) {
+    return null;
+  }
+
+  @Override
+  public String getKeywords(Page page) {
+    return null;
+  }
+
+  @Override
+  public boolean getAllowRobots(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page
+  ) {
+    return false;
+  }
+
+  @Override
+  public <__ extends FlowContent<__>> void doView(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      __ flow,
+      Page page
+  ) throws IOException {
+    flow.h1__(page.getTitle());
+    flow.p__(
+        page.getChildRefs().size() + " children, "
+            + page.getChildElements().size() + " elements, "
+            + page.getPageLinks().size() + " links"
+    );
+  }
+}
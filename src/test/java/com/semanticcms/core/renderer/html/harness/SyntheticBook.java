@@ -0,0 +1,214 @@
+/*
+ * semanticcms-core-renderer-html - SemanticCMS pages rendered as HTML in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-renderer-html.
+ *
+ * semanticcms-core-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-renderer-html.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.renderer.html.harness;
+
+import com.aoapps.lang.validation.ValidationException;
+import com.aoapps.net.DomainName;
+import com.aoapps.net.Path;
+import com.semanticcms.core.model.BookRef;
+import com.semanticcms.core.model.ChildRef;
+import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.model.ParentRef;
+import com.semanticcms.core.renderer.html.ElementFilterTree;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A generated book of pages, already captured, for benchmarks and load tests without a servlet container.
+ *
+ * <p>Pages are created breadth-first, each with up to {@code fanOut} children, until either {@code pageCount}
+ * pages exist or {@code depth} levels are full.  To form a DAG instead of a tree, some pages have a second parent
+ * that is always created earlier.  A small fraction of pages and elements link to a single {@linkplain #getLinksTo()
+ * target page}.</p>
+ */
+public final class SyntheticBook {
+
+  /**
+   * An element without any body, selected by {@link #matches()}.
+   */
+  public static final class SyntheticElement extends Element {
+
+    private final boolean matches;
+
+    public SyntheticElement(boolean matches) {
+      this.matches = matches;
+    }
+
+    /**
+     * Is this element selected by {@link #FILTER}?  About one in ten are.
+     */
+    public boolean matches() {
+      return matches;
+    }
+
+    @Override
+    public String getLabel() {
+      return getId();
+    }
+
+    @Override
+    protected String getElementIdTemplate() {
+      return "synthetic";
+    }
+  }
+
+  /**
+   * Selects about one in ten elements.
+   */
+  public static final ElementFilterTree.ElementFilter FILTER =
+      e -> !e.isHidden() && (e instanceof SyntheticElement) && ((SyntheticElement) e).matches();
+
+  /**
+   * The fraction of pages given a second parent.
+   */
+  private static final double EXTRA_PARENT_RATE = 0.05;
+
+  /**
+   * The fraction of pages and elements that link to the target page.
+   */
+  private static final double LINK_RATE = 0.01;
+
+  private final BookRef bookRef;
+  private final Map<PageRef, Page> pages;
+  private final Page root;
+  private final PageRef linksTo;
+
+  public SyntheticBook(int pageCount, int fanOut, int depth, int elementsPerPage, long seed) {
+    if (pageCount < 1) {
+      throw new IllegalArgumentException("pageCount < 1: " + pageCount);
+    }
+    if (fanOut < 1) {
+      throw new IllegalArgumentException("fanOut < 1: " + fanOut);
+    }
+    if (depth < 1) {
+      throw new IllegalArgumentException("depth < 1: " + depth);
+    }
+    Random random = new Random(seed);
+    try {
+      bookRef = new BookRef(DomainName.valueOf("example.com"), Path.valueOf("/synthetic"));
+    } catch (ValidationException e) {
+      throw new AssertionError(e);
+    }
+
+    // Build the structure by index, breadth-first, so parents always precede children
+    List<Integer> levels = new ArrayList<>(pageCount);
+    List<List<Integer>> parents = new ArrayList<>(pageCount);
+    List<List<Integer>> children = new ArrayList<>(pageCount);
+    levels.add(0);
+    parents.add(Collections.emptyList());
+    children.add(new ArrayList<>(fanOut));
+    for (int parent = 0; parent < levels.size() && levels.size() < pageCount; parent++) {
+      int level = levels.get(parent);
+      if (level + 1 < depth) {
+        for (int c = 0; c < fanOut && levels.size() < pageCount; c++) {
+          int child = levels.size();
+          levels.add(level + 1);
+          List<Integer> childParents = new ArrayList<>(2);
+          childParents.add(parent);
+          if (parent > 0 && random.nextDouble() < EXTRA_PARENT_RATE) {
+            int extraParent = random.nextInt(parent);
+            childParents.add(extraParent);
+            children.get(extraParent).add(child);
+          }
+          parents.add(childParents);
+          children.add(new ArrayList<>(fanOut));
+          children.get(parent).add(child);
+        }
+      }
+    }
+    int size = levels.size();
+    PageRef[] pageRefs = new PageRef[size];
+    for (int i = 0; i < size; i++) {
+      pageRefs[i] = newPageRef(i == 0 ? "/index.jspx" : ("/level-" + levels.get(i) + "/page-" + i + ".jspx"));
+    }
+    linksTo = pageRefs[size / 2];
+
+    // Create the pages
+    Map<PageRef, Page> newPages = new HashMap<>(size * 4 / 3 + 1);
+    for (int i = 0; i < size; i++) {
+      Page page = new Page();
+      page.setPageRef(pageRefs[i]);
+      page.setTitle("Synthetic Page " + i);
+      for (int parent : parents.get(i)) {
+        page.addParentRef(new ParentRef(pageRefs[parent], null));
+      }
+      for (int child : children.get(i)) {
+        page.addChildRef(new ChildRef(pageRefs[child]));
+      }
+      if (random.nextDouble() < LINK_RATE) {
+        page.addPageLink(linksTo);
+      }
+      for (int e = 0; e < elementsPerPage; e++) {
+        SyntheticElement element = new SyntheticElement(random.nextInt(10) == 0);
+        element.setId("element-" + e);
+        if (random.nextDouble() < LINK_RATE) {
+          element.addPageLink(linksTo);
+        }
+        // No body to write
+        page.addChildElement(element, null);
+      }
+      page.freeze();
+      newPages.put(pageRefs[i], page);
+    }
+    pages = Collections.unmodifiableMap(newPages);
+    root = pages.get(pageRefs[0]);
+  }
+
+  private PageRef newPageRef(String path) {
+    try {
+      return new PageRef(bookRef, Path.valueOf(path));
+    } catch (ValidationException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  public BookRef getBookRef() {
+    return bookRef;
+  }
+
+  /**
+   * Gets all pages by reference.
+   */
+  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+  public Map<PageRef, Page> getPages() {
+    return pages;
+  }
+
+  public Page getRoot() {
+    return root;
+  }
+
+  /**
+   * Gets the page linked to by a small fraction of pages and elements.
+   */
+  public PageRef getLinksTo() {
+    return linksTo;
+  }
+}